@@ -503,6 +503,19 @@ public class BasicProcessImage implements ProcessImage {
             l.holdingRegisterWrite(offset, old, value);
     }
 
+    /** {@inheritDoc} */
+    @Override
+    public synchronized short[] readWriteHoldingRegisters(int readOffset, int readCount, int writeOffset,
+            short[] values) throws IllegalDataAddressException {
+        // Check all of the addresses first, so that an invalid one leaves the registers unchanged.
+        for (int i = 0; i < values.length; i++)
+            getShort(writeOffset + i, holdingRegisters);
+        for (int i = 0; i < readCount; i++)
+            getShort(readOffset + i, holdingRegisters);
+
+        return ProcessImage.super.readWriteHoldingRegisters(readOffset, readCount, writeOffset, values);
+    }
+
     //
     // Input registers
     /** {@inheritDoc} */
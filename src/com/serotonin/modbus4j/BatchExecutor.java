@@ -0,0 +1,319 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import com.serotonin.modbus4j.base.KeyedModbusLocator;
+import com.serotonin.modbus4j.base.ReadFunctionGroup;
+import com.serotonin.modbus4j.exception.ErrorResponseException;
+import com.serotonin.modbus4j.exception.ModbusTransportException;
+
+/**
+ * <p>BatchExecutor class.</p>
+ *
+ * Sends a number of batch reads, possibly through different masters, concurrently, and merges their results into a
+ * single {@link BatchResults}. Where {@link ModbusMaster#send(BatchRead)} sends the requests of a batch one after the
+ * other, the executor keeps up to a configurable number of requests in flight on each master, so the time taken by a
+ * poll of many devices approaches that of the slowest device rather than the sum of them all.
+ *
+ * Each master is treated as one endpoint with its own concurrency limit, which is shared by all batches added for that
+ * master. The default limit of 1 sends each master's requests one at a time, while the masters themselves run in
+ * parallel. Higher limits are only useful for masters that can have several transactions outstanding, such as a
+ * pipelined TCP master talking to a gateway; other masters serialize their requests regardless.
+ *
+ * Requests are sent with the masters' asynchronous API, so masters that support it do not hold a thread while
+ * waiting. The errorsInResults and exceptionsInResults settings of each batch apply to its own requests. If a request
+ * fails otherwise, no further requests are started and the failure is returned. Requests of a cancelled batch that
+ * have not yet been started are skipped.
+ *
+ * The time budget of each batch starts when the executor is sent, and is applied to the batch's requests as in
+ * {@link ModbusMaster#send(BatchRead)}. Each master starts its requests in order of priority.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ * @param <K> type of the locator keys
+ */
+public class BatchExecutor<K> {
+    private final Map<ModbusMaster, List<BatchRead<K>>> batches = new LinkedHashMap<>();
+    private final Map<ModbusMaster, Integer> concurrencyLimits = new HashMap<>();
+    private int defaultConcurrencyLimit = 1;
+
+    /**
+     * Adds a batch to be read through the given master. Keys must be unique across all batches of the executor.
+     *
+     * @param master a {@link com.serotonin.modbus4j.ModbusMaster} object.
+     * @param batch a {@link com.serotonin.modbus4j.BatchRead} object.
+     */
+    public void addBatch(ModbusMaster master, BatchRead<K> batch) {
+        batches.computeIfAbsent(master, m -> new ArrayList<>()).add(batch);
+    }
+
+    /**
+     * <p>Getter for the field <code>defaultConcurrencyLimit</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getDefaultConcurrencyLimit() {
+        return defaultConcurrencyLimit;
+    }
+
+    /**
+     * Sets the number of requests that may be in flight at once on masters that have no limit of their own.
+     *
+     * @param defaultConcurrencyLimit a int.
+     */
+    public void setDefaultConcurrencyLimit(int defaultConcurrencyLimit) {
+        if (defaultConcurrencyLimit < 1)
+            throw new IllegalArgumentException("defaultConcurrencyLimit must be at least 1");
+        this.defaultConcurrencyLimit = defaultConcurrencyLimit;
+    }
+
+    /**
+     * <p>getConcurrencyLimit.</p>
+     *
+     * @param master a {@link com.serotonin.modbus4j.ModbusMaster} object.
+     * @return the number of requests that may be in flight at once on the master.
+     */
+    public int getConcurrencyLimit(ModbusMaster master) {
+        Integer limit = concurrencyLimits.get(master);
+        return limit == null ? defaultConcurrencyLimit : limit;
+    }
+
+    /**
+     * Sets the number of requests that may be in flight at once on the given master.
+     *
+     * @param master a {@link com.serotonin.modbus4j.ModbusMaster} object.
+     * @param limit a int.
+     */
+    public void setConcurrencyLimit(ModbusMaster master, int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("limit must be at least 1");
+        concurrencyLimits.put(master, limit);
+    }
+
+    /**
+     * Sends all of the batches, blocking until they are complete.
+     *
+     * @return a {@link com.serotonin.modbus4j.BatchResults} object.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     */
+    public BatchResults<K> send() throws ModbusTransportException, ErrorResponseException {
+        try {
+            return sendAsync().get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusTransportException(e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ModbusTransportException)
+                throw (ModbusTransportException) cause;
+            if (cause instanceof ErrorResponseException)
+                throw (ErrorResponseException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new ModbusTransportException(cause);
+        }
+    }
+
+    /**
+     * Sends all of the batches without blocking the calling thread.
+     *
+     * @return a future for the {@link com.serotonin.modbus4j.BatchResults}.
+     */
+    public CompletableFuture<BatchResults<K>> sendAsync() {
+        Execution execution = new Execution();
+        long now = System.currentTimeMillis();
+        for (Map.Entry<ModbusMaster, List<BatchRead<K>>> e : batches.entrySet()) {
+            ModbusMaster master = e.getKey();
+            if (!master.isInitialized())
+                return ModbusMaster.failedFuture(new ModbusTransportException("not initialized"));
+
+            Endpoint endpoint = new Endpoint(master, getConcurrencyLimit(master));
+            List<Task> tasks = new ArrayList<>();
+            for (BatchRead<K> batch : e.getValue()) {
+                long deadline = batch.getTimeBudget() > 0 ? now + batch.getTimeBudget() : 0;
+                for (ReadFunctionGroup<K> functionGroup : batch.getReadFunctionGroups(master))
+                    tasks.add(new Task(endpoint, batch, functionGroup, deadline));
+            }
+            // Stable, so the batches' own order is kept among equal priorities.
+            Collections.sort(tasks, (t1, t2) -> Integer.compare(t2.functionGroup.getPriority(),
+                    t1.functionGroup.getPriority()));
+            endpoint.pending.addAll(tasks);
+            execution.endpoints.add(endpoint);
+            execution.remaining += endpoint.pending.size();
+        }
+
+        execution.start();
+        return execution.future;
+    }
+
+    //
+    //
+    // Private stuff
+    //
+    private class Task {
+        final Endpoint endpoint;
+        final BatchRead<K> batch;
+        final ReadFunctionGroup<K> functionGroup;
+        final long deadline;
+
+        Task(Endpoint endpoint, BatchRead<K> batch, ReadFunctionGroup<K> functionGroup, long deadline) {
+            this.endpoint = endpoint;
+            this.batch = batch;
+            this.functionGroup = functionGroup;
+            this.deadline = deadline;
+        }
+
+        int getSlaveId() {
+            return functionGroup.getSlaveAndRange().getSlaveId();
+        }
+    }
+
+    private class Endpoint {
+        final ModbusMaster master;
+        final int limit;
+        final Deque<Task> pending = new ArrayDeque<>();
+        // Slaves that failed to respond to a request of a batch with a time budget.
+        final Set<Integer> unreachableSlaves = new HashSet<>();
+        int active;
+
+        Endpoint(ModbusMaster master, int limit) {
+            this.master = master;
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * The state of a single send. All fields are guarded by the execution's monitor. Requests are started outside of
+     * it, because a request can complete in the thread that starts it.
+     */
+    private class Execution {
+        final CompletableFuture<BatchResults<K>> future = new CompletableFuture<>();
+        final BatchResults<K> results = new BatchResults<>();
+        final List<Endpoint> endpoints = new ArrayList<>();
+        int remaining;
+        boolean failed;
+
+        void start() {
+            List<Task> toStart = new ArrayList<>();
+            boolean done;
+            synchronized (this) {
+                for (Endpoint endpoint : endpoints)
+                    take(endpoint, toStart);
+                done = remaining == 0;
+            }
+
+            if (done)
+                future.complete(results);
+            else
+                send(toStart);
+        }
+
+        void send(List<Task> tasks) {
+            for (Task task : tasks) {
+                Endpoint endpoint = task.endpoint;
+                BatchResults<K> groupResults = new BatchResults<>();
+                CompletableFuture<Boolean> sent;
+                try {
+                    sent = endpoint.master.sendFunctionGroupAsync(task.functionGroup, groupResults,
+                            task.batch.isErrorsInResults(), task.batch.isExceptionsInResults(),
+                            task.batch.isSplitFailingRequests(), task.deadline);
+                }
+                catch (RuntimeException e) {
+                    sent = ModbusMaster.failedFuture(e);
+                }
+                sent.whenComplete((v, t) -> completed(task, groupResults, t));
+            }
+        }
+
+        void completed(Task task, BatchResults<K> groupResults, Throwable t) {
+            Endpoint endpoint = task.endpoint;
+            List<Task> toStart = new ArrayList<>();
+            boolean done;
+            synchronized (this) {
+                endpoint.active--;
+                remaining--;
+                if (failed)
+                    return;
+
+                if (t != null) {
+                    failed = true;
+                    done = false;
+                }
+                else {
+                    if (ModbusMaster.isUnreachable(task.functionGroup, groupResults, task.deadline))
+                        endpoint.unreachableSlaves.add(task.getSlaveId());
+                    results.addResults(groupResults);
+                    take(endpoint, toStart);
+                    done = remaining == 0;
+                }
+            }
+
+            if (t != null)
+                future.completeExceptionally(t instanceof CompletionException && t.getCause() != null ? t.getCause()
+                        : t);
+            else if (done)
+                future.complete(results);
+            else
+                send(toStart);
+        }
+
+        /**
+         * Moves pending tasks of the endpoint to the list of tasks to start, up to the endpoint's limit. Tasks of
+         * cancelled batches are dropped, and tasks with a deadline for slaves that have failed to respond are marked
+         * as not attempted.
+         */
+        private void take(Endpoint endpoint, List<Task> toStart) {
+            while (endpoint.active < endpoint.limit && !endpoint.pending.isEmpty()) {
+                Task task = endpoint.pending.poll();
+                if (task.batch.isCancel())
+                    remaining--;
+                else if (task.deadline != 0 && endpoint.unreachableSlaves.contains(task.getSlaveId())) {
+                    for (KeyedModbusLocator<K> locator : task.functionGroup.getLocators())
+                        results.addResult(locator.getKey(), NotAttemptedResult.SLAVE_UNREACHABLE);
+                    remaining--;
+                }
+                else {
+                    endpoint.active++;
+                    toStart.add(task);
+                }
+            }
+        }
+    }
+}
@@ -31,6 +31,8 @@ import java.util.Map;
 import com.serotonin.modbus4j.base.KeyedModbusLocator;
 import com.serotonin.modbus4j.base.ReadFunctionGroup;
 import com.serotonin.modbus4j.base.SlaveAndRange;
+import com.serotonin.modbus4j.base.SlaveProfile;
+import com.serotonin.modbus4j.exception.ModbusTransportException;
 import com.serotonin.modbus4j.locator.BaseLocator;
 
 /**
@@ -44,7 +46,20 @@ import com.serotonin.modbus4j.locator.BaseLocator;
  * generally more efficient to read a set of values with a single request, the batch read by default will assume that no
  * such error responses will be returned. If your batch request results in such errors, it is recommended that you
  * separate the offending request to a separate batch read object, or you can use the "contiguous requests" setting
- * which causes requests to be partitioned into only contiguous sets.
+ * which causes requests to be partitioned into only contiguous sets. Address ranges that are known to be unreadable
+ * can also be noted in the master's slave profile (see
+ * {@link com.serotonin.modbus4j.base.SlaveProfile#addUnreadableRange(int, int, int)}), and requests will not span
+ * them. Similarly, requests are kept within the profile's max read count for the range, if the slave has one. The
+ * batch is partitioned again whenever a slave's profile changes.
+ *
+ * Rather than noting the unreadable ranges up front, the "split failing requests" setting can be used to find them.
+ * When a request fails with an illegal data address exception, it is split in two and each half is sent, recursively,
+ * until the locators that cannot be read are isolated. The addresses found to be unreadable are noted in the slave's
+ * profile, so that subsequent sends of the batch read the remaining locators in as few requests as possible.
+ *
+ * By default locators are packed greedily into as few requests as possible. On slow links it can be faster to leave
+ * large gaps unread and send more requests instead. The "cost based requests" setting chooses the partitioning with
+ * the least estimated time, using the request and register costs of each slave's profile.
  *
  * @author mlohbihler
  * @param <K> - Type of read
@@ -58,6 +73,16 @@ public class BatchRead<K> {
      */
     private boolean contiguousRequests = false;
 
+    /**
+     * See documentation above.
+     */
+    private boolean costBasedRequests = false;
+
+    /**
+     * See documentation above.
+     */
+    private boolean splitFailingRequests = false;
+
     /**
      * If this value is false, any error response received will cause an exception to be thrown, and the entire batch to
      * be aborted (unless exceptionsInResults is true - see below). If set to true, error responses will be set as the
@@ -78,11 +103,26 @@ public class BatchRead<K> {
      */
     private boolean cancel;
 
+    /**
+     * The time in milliseconds that a send of the batch may take, or 0 for no limit. Each request is given no more
+     * time, in timeout and retries, than remains of the budget. Requests that cannot be sent in time, or that are to
+     * a slave that has already failed to respond during the send, are not sent, and their locators get a
+     * {@link NotAttemptedResult} instead. The requests are sent in order of priority, so that the most important
+     * values are read first. This is only useful with exceptionsInResults, since otherwise the first request that
+     * times out aborts the batch anyway.
+     */
+    private long timeBudget;
+
     /**
      * This is what the data looks like after partitioning.
      */
     private List<ReadFunctionGroup<K>> functionGroups;
 
+    /**
+     * The revisions of the slave profiles that the partitioning was based on, by slave id.
+     */
+    private Map<Integer, Integer> profileRevisions;
+
     /**
      * <p>isContiguousRequests.</p>
      *
@@ -102,6 +142,45 @@ public class BatchRead<K> {
         functionGroups = null;
     }
 
+    /**
+     * <p>isCostBasedRequests.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isCostBasedRequests() {
+        return costBasedRequests;
+    }
+
+    /**
+     * <p>Setter for the field <code>costBasedRequests</code>.</p>
+     *
+     * @param costBasedRequests a boolean.
+     */
+    public void setCostBasedRequests(boolean costBasedRequests) {
+        this.costBasedRequests = costBasedRequests;
+        functionGroups = null;
+    }
+
+    /**
+     * <p>isSplitFailingRequests.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isSplitFailingRequests() {
+        return splitFailingRequests;
+    }
+
+    /**
+     * <p>Setter for the field <code>splitFailingRequests</code>.</p>
+     *
+     * A {@link com.serotonin.modbus4j.CompiledBatchRead} takes the value when it is compiled.
+     *
+     * @param splitFailingRequests a boolean.
+     */
+    public void setSplitFailingRequests(boolean splitFailingRequests) {
+        this.splitFailingRequests = splitFailingRequests;
+    }
+
     /**
      * <p>isErrorsInResults.</p>
      *
@@ -145,11 +224,23 @@ public class BatchRead<K> {
      * @return a {@link java.util.List} object.
      */
     public List<ReadFunctionGroup<K>> getReadFunctionGroups(ModbusMaster master) {
-        if (functionGroups == null)
+        if (functionGroups == null || isProfileChanged(master))
             doPartition(master);
         return functionGroups;
     }
 
+    /**
+     * Compiles the batch into an immutable form that can be sent repeatedly without partitioning it again. The batch is
+     * partitioned using the given master's limits and slave profiles as they are at the time of the call.
+     *
+     * @param master a {@link com.serotonin.modbus4j.ModbusMaster} object.
+     * @return a {@link com.serotonin.modbus4j.CompiledBatchRead} object.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any of the requests cannot be created.
+     */
+    public CompiledBatchRead<K> compile(ModbusMaster master) throws ModbusTransportException {
+        return new CompiledBatchRead<>(this, master);
+    }
+
     /**
      * <p>addLocator.</p>
      *
@@ -160,11 +251,43 @@ public class BatchRead<K> {
         addLocator(new KeyedModbusLocator<>(id, locator));
     }
 
+    /**
+     * Adds a locator with a priority. Requests of the batch are sent in order of the highest priority of their
+     * locators, which matters if the batch has a time budget. Locators added without one have a priority of 0.
+     *
+     * @param id a K object.
+     * @param locator a {@link com.serotonin.modbus4j.locator.BaseLocator} object.
+     * @param priority a int.
+     */
+    public void addLocator(K id, BaseLocator<?> locator, int priority) {
+        addLocator(new KeyedModbusLocator<>(id, locator, priority));
+    }
+
     private void addLocator(KeyedModbusLocator<K> locator) {
         requestValues.add(locator);
         functionGroups = null;
     }
 
+    /**
+     * <p>Getter for the field <code>timeBudget</code>.</p>
+     *
+     * @return a long.
+     */
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * <p>Setter for the field <code>timeBudget</code>.</p>
+     *
+     * A {@link com.serotonin.modbus4j.CompiledBatchRead} takes the value when it is compiled.
+     *
+     * @param timeBudget a long.
+     */
+    public void setTimeBudget(long timeBudget) {
+        this.timeBudget = timeBudget;
+    }
+
     /**
      * <p>isCancel.</p>
      *
@@ -177,6 +300,8 @@ public class BatchRead<K> {
     /**
      * <p>Setter for the field <code>cancel</code>.</p>
      *
+     * Also cancels sends of a {@link com.serotonin.modbus4j.CompiledBatchRead} of this batch.
+     *
      * @param cancel a boolean.
      */
     public void setCancel(boolean cancel) {
@@ -187,8 +312,17 @@ public class BatchRead<K> {
     //
     // Private stuff
     //
+    private boolean isProfileChanged(ModbusMaster master) {
+        for (Map.Entry<Integer, Integer> e : profileRevisions.entrySet()) {
+            if (master.getSlaveProfile(e.getKey()).getRevision() != e.getValue())
+                return true;
+        }
+        return false;
+    }
+
     private void doPartition(ModbusMaster master) {
         Map<SlaveAndRange, List<KeyedModbusLocator<K>>> slaveRangeBatch = new HashMap<>();
+        profileRevisions = new HashMap<>();
 
         // Separate the batch into slave ids and read functions.
         List<KeyedModbusLocator<K>> functionList;
@@ -215,12 +349,24 @@ public class BatchRead<K> {
 
             // Break into parts by excessive request length. Remember the max item count that we can ask for, for
             // this function
-            int maxReadCount = master.getMaxReadCount(functionLocatorList.get(0).getSlaveAndRange().getRange());
+            SlaveAndRange slaveAndRange = functionLocatorList.get(0).getSlaveAndRange();
+            int maxReadCount = master.getMaxReadCount(slaveAndRange.getRange());
+            SlaveProfile profile = master.getSlaveProfile(slaveAndRange.getSlaveId());
+            profileRevisions.put(slaveAndRange.getSlaveId(), profile.getRevision());
+            int learnedMaxReadCount = profile.getMaxReadCount(slaveAndRange.getRange());
+            if (learnedMaxReadCount > 0 && learnedMaxReadCount < maxReadCount)
+                maxReadCount = learnedMaxReadCount;
 
             // Create the request groups.
-            createRequestGroups(functionGroups, functionLocatorList, maxReadCount);
+            if (costBasedRequests)
+                createCostBasedRequestGroups(functionGroups, functionLocatorList, maxReadCount, profile);
+            else
+                createRequestGroups(functionGroups, functionLocatorList, maxReadCount, profile);
             //System.out.println("requests: " + functionGroups.size());
         }
+
+        // Send the most important requests first. The sort is stable, so without priorities the order is unchanged.
+        Collections.sort(functionGroups, (g1, g2) -> Integer.compare(g2.getPriority(), g1.getPriority()));
     }
 
     /**
@@ -231,7 +377,7 @@ public class BatchRead<K> {
      * This method assumes the locators have already been sorted by start offset.
      */
     private void createRequestGroups(List<ReadFunctionGroup<K>> functionGroups, List<KeyedModbusLocator<K>> locators,
-            int maxCount) {
+            int maxCount, SlaveProfile profile) {
         ReadFunctionGroup<K> functionGroup;
         KeyedModbusLocator<K> locator;
         int index;
@@ -248,7 +394,7 @@ public class BatchRead<K> {
                 locator = locators.get(index);
                 boolean added = false;
 
-                if (locator.getEndOffset() <= endOffset) {
+                if (locator.getEndOffset() <= endOffset && !spansUnreadable(profile, functionGroup, locator)) {
                     if (contiguousRequests) {
                         // The locator must at least abut the other locators in the group.
                         if (locator.getOffset() <= functionGroup.getEndOffset() + 1) {
@@ -275,6 +421,77 @@ public class BatchRead<K> {
         }
     }
 
+    /**
+     * Finds the partitioning of the locators into requests that has the least total cost according to the slave
+     * profile, where each request costs a fixed amount plus an amount per register read, including any unused
+     * registers in gaps between locators. Since the locators are sorted by offset, every request in an optimal
+     * solution holds a consecutive run of them, so the least cost of reading the first i locators can be built up from
+     * the least costs of reading shorter prefixes.
+     *
+     * This method assumes the locators have already been sorted by start offset.
+     */
+    private void createCostBasedRequestGroups(List<ReadFunctionGroup<K>> functionGroups,
+            List<KeyedModbusLocator<K>> locators, int maxCount, SlaveProfile profile) {
+        int count = locators.size();
+        int range = locators.get(0).getSlaveAndRange().getRange();
+
+        // cost[i] is the least cost of reading the first i locators, and groupStart[i] is the index of the first
+        // locator in the last request of that solution.
+        double[] cost = new double[count + 1];
+        int[] groupStart = new int[count + 1];
+        for (int i = 1; i <= count; i++)
+            cost[i] = Double.MAX_VALUE;
+
+        for (int start = 0; start < count; start++) {
+            int startOffset = locators.get(start).getOffset();
+            int endOffset = -1;
+            boolean contiguous = true;
+
+            // Try each run of locators that begins at start as a single request. A locator on its own is always a
+            // valid request, however long it is.
+            for (int end = start; end < count; end++) {
+                KeyedModbusLocator<K> locator = locators.get(end);
+                if (locator.getOffset() > endOffset + 1 && end > start)
+                    contiguous = false;
+                endOffset = Math.max(endOffset, locator.getEndOffset());
+                int length = endOffset - startOffset + 1;
+
+                // Runs only get longer as they are extended, so once a run is invalid, so are all longer ones.
+                if (end > start) {
+                    if (length > maxCount)
+                        break;
+                    if (contiguousRequests && !contiguous)
+                        break;
+                    if (profile.isUnreadable(range, startOffset, endOffset))
+                        break;
+                }
+
+                double c = cost[start] + profile.getReadCost(range, length);
+                if (c < cost[end + 1]) {
+                    cost[end + 1] = c;
+                    groupStart[end + 1] = start;
+                }
+            }
+        }
+
+        // Walk back through the solution to create the groups, and add them in offset order.
+        List<ReadFunctionGroup<K>> groups = new ArrayList<>();
+        for (int end = count; end > 0; end = groupStart[end]) {
+            ReadFunctionGroup<K> functionGroup = new ReadFunctionGroup<>(locators.get(groupStart[end]));
+            for (int i = groupStart[end] + 1; i < end; i++)
+                functionGroup.add(locators.get(i));
+            groups.add(functionGroup);
+        }
+        Collections.reverse(groups);
+        functionGroups.addAll(groups);
+    }
+
+    private boolean spansUnreadable(SlaveProfile profile, ReadFunctionGroup<K> functionGroup,
+            KeyedModbusLocator<K> locator) {
+        return profile.isUnreadable(functionGroup.getSlaveAndRange().getRange(), functionGroup.getStartOffset(),
+                Math.max(functionGroup.getEndOffset(), locator.getEndOffset()));
+    }
+
     class FunctionLocatorComparator implements Comparator<KeyedModbusLocator<K>> {
         @Override
         public int compare(KeyedModbusLocator<K> ml1, KeyedModbusLocator<K> ml2) {
@@ -21,16 +21,39 @@
 package com.serotonin.modbus4j;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
  * <p>BatchResults class.</p>
  *
+ * Results of a {@link com.serotonin.modbus4j.CompiledBatchRead} are kept in an array of slots, one per locator, that
+ * is overwritten each time the batch is sent, rather than in a map.
+ *
  * @author Matthew Lohbihler
  * @version 5.0.0
  */
 public class BatchResults<K> {
-    private final Map<K, Object> data = new HashMap<>();
+    private final Map<K, Object> data;
+
+    // Slot storage, used instead of the map for compiled batches.
+    private final Map<K, Integer> slots;
+    private final Object[] values;
+
+    /**
+     * <p>Constructor for BatchResults.</p>
+     */
+    public BatchResults() {
+        data = new HashMap<>();
+        slots = null;
+        values = null;
+    }
+
+    BatchResults(Map<K, Integer> slots) {
+        data = null;
+        this.slots = slots;
+        values = new Object[slots.size()];
+    }
 
     /**
      * <p>addResult.</p>
@@ -39,7 +62,18 @@ public class BatchResults<K> {
      * @param value a {@link java.lang.Object} object.
      */
     public void addResult(K key, Object value) {
-        data.put(key, value);
+        if (values == null)
+            data.put(key, value);
+        else
+            values[slots.get(key)] = value;
+    }
+
+    void setResult(int slot, Object value) {
+        values[slot] = value;
+    }
+
+    void addResults(BatchResults<K> results) {
+        data.putAll(results.data);
     }
 
     /**
@@ -49,7 +83,21 @@ public class BatchResults<K> {
      * @return a {@link java.lang.Object} object.
      */
     public Object getValue(K key) {
-        return data.get(key);
+        if (values == null)
+            return data.get(key);
+        Integer slot = slots.get(key);
+        return slot == null ? null : values[slot];
+    }
+
+    /**
+     * Returns the value in the given slot of a compiled batch's results. See
+     * {@link com.serotonin.modbus4j.CompiledBatchRead#getSlot(Object)}.
+     *
+     * @param slot a int.
+     * @return a {@link java.lang.Object} object.
+     */
+    public Object getSlotValue(int slot) {
+        return values[slot];
     }
 
     /**
@@ -95,6 +143,12 @@ public class BatchResults<K> {
     /** {@inheritDoc} */
     @Override
     public String toString() {
-        return data.toString();
+        if (values == null)
+            return data.toString();
+
+        Map<K, Object> map = new LinkedHashMap<>();
+        for (Map.Entry<K, Integer> e : slots.entrySet())
+            map.put(e.getKey(), values[e.getValue()]);
+        return map.toString();
     }
 }
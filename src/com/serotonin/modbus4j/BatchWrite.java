@@ -0,0 +1,259 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.serotonin.modbus4j.base.KeyedModbusLocator;
+import com.serotonin.modbus4j.base.SlaveAndRange;
+import com.serotonin.modbus4j.base.WriteFunctionGroup;
+import com.serotonin.modbus4j.code.DataType;
+import com.serotonin.modbus4j.code.RegisterRange;
+import com.serotonin.modbus4j.exception.ErrorResponseException;
+import com.serotonin.modbus4j.exception.InvalidDataConversionException;
+import com.serotonin.modbus4j.exception.ModbusTransportException;
+import com.serotonin.modbus4j.locator.BaseLocator;
+import com.serotonin.modbus4j.locator.BinaryLocator;
+import com.serotonin.modbus4j.locator.NumericLocator;
+
+/**
+ * <p>BatchWrite class.</p>
+ *
+ * The writing counterpart of {@link BatchRead}. Where {@link ModbusMaster#setValue(BaseLocator, Object)} sends one
+ * request per value, a batch write merges the values of adjacent coils and holding registers of a slave into as few
+ * write multiple coils and write multiple registers requests as possible, each within the master's max write count.
+ * If a locator is added more than once, or the locators overlap, the value added last is written.
+ *
+ * Bits of holding registers (binary locators) are written by reading the current values of their registers, setting
+ * or clearing the bits, and writing the registers back along with the other values. The registers to modify are read
+ * in a single batch read, and registers that are entirely overwritten by other locators of the batch are not read at
+ * all. As with setValue, this is not atomic: a change made to the other bits of such a register by some other party
+ * between the read and the write is lost.
+ *
+ * A failure does not abort the batch. Each key gets its own outcome in the results: Boolean.TRUE if its value was
+ * written, an {@link ExceptionResult} if the slave responded with an error, or the
+ * {@link com.serotonin.modbus4j.exception.ModbusTransportException} if the request did not get through. A locator
+ * that spans more registers than the max write count may be written by more than one request, in which case its
+ * outcome is the first failure, if any.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ * @param <K> type of the locator keys
+ */
+public class BatchWrite<K> {
+    private static final int ALL_BITS = 0xFFFF;
+
+    private final List<Write<K>> writes = new ArrayList<>();
+
+    /**
+     * Adds a value to be written.
+     *
+     * @param id a K object.
+     * @param locator a {@link com.serotonin.modbus4j.locator.BaseLocator} object.
+     * @param value the value to write. See {@link ModbusMaster#setValue(BaseLocator, Object)}.
+     * @param <T> type of the locator
+     */
+    public <T> void addLocator(K id, BaseLocator<T> locator, Object value) {
+        int range = locator.getRange();
+        if (range == RegisterRange.INPUT_STATUS || range == RegisterRange.INPUT_REGISTER)
+            throw new RuntimeException("Cannot write to input status or input register ranges");
+
+        Write<K> write = new Write<>(new KeyedModbusLocator<>(id, locator));
+        if (range == RegisterRange.COIL_STATUS || locator.getDataType() == DataType.BINARY) {
+            if (!(value instanceof Boolean))
+                throw new InvalidDataConversionException("Only boolean values can be written to coils");
+            write.bit = (Boolean) value;
+        }
+        else {
+            @SuppressWarnings("unchecked")
+            short[] data = locator.valueToShorts((T) value);
+            write.data = data;
+        }
+        writes.add(write);
+    }
+
+    /**
+     * <p>getLocators.</p>
+     *
+     * @return the locators of the batch, in the order they were added.
+     */
+    public List<KeyedModbusLocator<K>> getLocators() {
+        List<KeyedModbusLocator<K>> locators = new ArrayList<>(writes.size());
+        for (Write<K> write : writes)
+            locators.add(write.locator);
+        return locators;
+    }
+
+    /**
+     * Merges the writes into requests. Bits of holding registers that are not otherwise written are merged into the
+     * current values of their registers, which are read through the master. The keys of registers that cannot be read
+     * get the failure as their outcome in the given results, and are not written.
+     */
+    List<WriteFunctionGroup<K>> getWriteFunctionGroups(ModbusMaster master, BatchResults<K> results)
+            throws ModbusTransportException, ErrorResponseException {
+        // The value of each coil or register to write, by slave and range.
+        Map<SlaveAndRange, TreeMap<Integer, Cell<K>>> cells = new LinkedHashMap<>();
+        for (Write<K> write : writes) {
+            TreeMap<Integer, Cell<K>> rangeCells = cells.computeIfAbsent(write.locator.getSlaveAndRange(),
+                    sar -> new TreeMap<>());
+            int offset = write.locator.getOffset();
+
+            if (write.data != null) {
+                for (int i = 0; i < write.data.length; i++) {
+                    Cell<K> cell = getCell(rangeCells, offset + i);
+                    cell.value = write.data[i] & 0xFFFF;
+                    cell.mask = ALL_BITS;
+                    cell.keys.add(write.locator.getKey());
+                }
+            }
+            else {
+                Cell<K> cell = getCell(rangeCells, offset);
+                if (write.locator.getSlaveAndRange().getRange() == RegisterRange.COIL_STATUS) {
+                    cell.value = write.bit ? 1 : 0;
+                    cell.mask = ALL_BITS;
+                }
+                else {
+                    int bit = 1 << ((BinaryLocator) write.locator.getLocator()).getBit();
+                    cell.value = write.bit ? cell.value | bit : cell.value & ~bit;
+                    cell.mask |= bit;
+                }
+                cell.keys.add(write.locator.getKey());
+            }
+        }
+
+        readModifiedRegisters(master, cells, results);
+
+        List<WriteFunctionGroup<K>> functionGroups = new ArrayList<>();
+        for (Map.Entry<SlaveAndRange, TreeMap<Integer, Cell<K>>> e : cells.entrySet()) {
+            SlaveAndRange slaveAndRange = e.getKey();
+            int maxWriteCount = master.getMaxWriteCount(slaveAndRange.getRange());
+
+            List<Cell<K>> run = new ArrayList<>();
+            int runStart = 0;
+            for (Map.Entry<Integer, Cell<K>> c : e.getValue().entrySet()) {
+                int offset = c.getKey();
+                if (!run.isEmpty() && (offset != runStart + run.size() || run.size() >= maxWriteCount)) {
+                    functionGroups.add(createFunctionGroup(slaveAndRange, runStart, run));
+                    run.clear();
+                }
+                if (run.isEmpty())
+                    runStart = offset;
+                run.add(c.getValue());
+            }
+            if (!run.isEmpty())
+                functionGroups.add(createFunctionGroup(slaveAndRange, runStart, run));
+        }
+
+        return functionGroups;
+    }
+
+    //
+    //
+    // Private stuff
+    //
+    private void readModifiedRegisters(ModbusMaster master, Map<SlaveAndRange, TreeMap<Integer, Cell<K>>> cells,
+            BatchResults<K> results) throws ModbusTransportException, ErrorResponseException {
+        BatchRead<Cell<K>> batch = new BatchRead<>();
+        batch.setErrorsInResults(true);
+        batch.setExceptionsInResults(true);
+        boolean empty = true;
+        for (Map.Entry<SlaveAndRange, TreeMap<Integer, Cell<K>>> e : cells.entrySet()) {
+            for (Map.Entry<Integer, Cell<K>> c : e.getValue().entrySet()) {
+                if (c.getValue().mask != ALL_BITS) {
+                    batch.addLocator(c.getValue(), new NumericLocator(e.getKey().getSlaveId(),
+                            RegisterRange.HOLDING_REGISTER, c.getKey(), DataType.TWO_BYTE_INT_UNSIGNED));
+                    empty = false;
+                }
+            }
+        }
+        if (empty)
+            return;
+
+        BatchResults<Cell<K>> current = master.send(batch);
+        for (TreeMap<Integer, Cell<K>> rangeCells : cells.values()) {
+            rangeCells.values().removeIf(cell -> {
+                if (cell.mask == ALL_BITS)
+                    return false;
+
+                Object value = current.getValue(cell);
+                if (value instanceof Integer) {
+                    cell.value = (Integer) value & ~cell.mask | cell.value & cell.mask;
+                    cell.mask = ALL_BITS;
+                    return false;
+                }
+
+                // Only bits are written to registers that had to be read, so the failure is the keys' only outcome.
+                for (K key : cell.keys)
+                    results.addResult(key, value);
+                return true;
+            });
+        }
+    }
+
+    private static <K> Cell<K> getCell(TreeMap<Integer, Cell<K>> rangeCells, int offset) {
+        return rangeCells.computeIfAbsent(offset, o -> new Cell<>());
+    }
+
+    private static <K> WriteFunctionGroup<K> createFunctionGroup(SlaveAndRange slaveAndRange, int startOffset,
+            List<Cell<K>> run) {
+        Set<K> keys = new LinkedHashSet<>();
+        for (Cell<K> cell : run)
+            keys.addAll(cell.keys);
+
+        if (slaveAndRange.getRange() == RegisterRange.COIL_STATUS) {
+            boolean[] coils = new boolean[run.size()];
+            for (int i = 0; i < coils.length; i++)
+                coils[i] = run.get(i).value != 0;
+            return new WriteFunctionGroup<>(slaveAndRange, startOffset, coils, new ArrayList<>(keys));
+        }
+
+        short[] registers = new short[run.size()];
+        for (int i = 0; i < registers.length; i++)
+            registers[i] = (short) run.get(i).value;
+        return new WriteFunctionGroup<>(slaveAndRange, startOffset, registers, new ArrayList<>(keys));
+    }
+
+    private static class Write<K> {
+        final KeyedModbusLocator<K> locator;
+        short[] data;
+        boolean bit;
+
+        Write(KeyedModbusLocator<K> locator) {
+            this.locator = locator;
+        }
+    }
+
+    /**
+     * A single coil or register to write. The mask has the bits of the value that are known, which is all of them
+     * unless only some bits of a holding register are written. Compared by identity when used as a key.
+     */
+    private static class Cell<K> {
+        int value;
+        int mask;
+        final List<K> keys = new ArrayList<>(1);
+    }
+}
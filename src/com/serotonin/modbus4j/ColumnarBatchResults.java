@@ -0,0 +1,207 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j;
+
+import java.util.Arrays;
+
+/**
+ * <p>ColumnarBatchResults class.</p>
+ *
+ * Results of a {@link com.serotonin.modbus4j.CompiledBatchRead} held in parallel primitive arrays indexed by slot
+ * rather than as objects, so that reading numeric values involves neither boxing nor hashing. Each slot has a status,
+ * and successful numeric values are available both as a long and as a double. Values of other locators, such as
+ * strings, and the details of failures are kept as objects. The arrays are overwritten each time the batch is sent;
+ * slots of requests that were not sent because a send failed keep their previous contents.
+ *
+ * Instances are created with {@link com.serotonin.modbus4j.CompiledBatchRead#createColumnarResults()}, and slots are
+ * found with {@link com.serotonin.modbus4j.CompiledBatchRead#getSlot(Object)}.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+public class ColumnarBatchResults {
+    /** The slot has not been read. */
+    public static final byte STATUS_NOT_READ = 0;
+    /** The slot holds a value. */
+    public static final byte STATUS_OK = 1;
+    /** The slave returned an exception response. See {@link #getError(int)}. */
+    public static final byte STATUS_ERROR_RESPONSE = 2;
+    /** The request failed in transport. See {@link #getError(int)}. */
+    public static final byte STATUS_TRANSPORT_ERROR = 3;
+    /** The request was not sent, because of a time budget or an unreachable slave. See {@link #getError(int)}. */
+    public static final byte STATUS_NOT_ATTEMPTED = 4;
+
+    private final byte[] statuses;
+    private final long[] longs;
+    private final double[] doubles;
+    private final Object[] objects;
+
+    ColumnarBatchResults(int size) {
+        statuses = new byte[size];
+        longs = new long[size];
+        doubles = new double[size];
+        objects = new Object[size];
+    }
+
+    /**
+     * <p>size.</p>
+     *
+     * @return the number of slots.
+     */
+    public int size() {
+        return statuses.length;
+    }
+
+    /**
+     * <p>getStatus.</p>
+     *
+     * @param slot a int.
+     * @return one of the STATUS_ constants.
+     */
+    public byte getStatus(int slot) {
+        return statuses[slot];
+    }
+
+    /**
+     * <p>isOk.</p>
+     *
+     * @param slot a int.
+     * @return true if the slot holds a value.
+     */
+    public boolean isOk(int slot) {
+        return statuses[slot] == STATUS_OK;
+    }
+
+    /**
+     * Returns the value of a numeric or binary locator as a long. Binary values are 1 or 0, and floating point values
+     * are truncated. Only meaningful if the status of the slot is {@link #STATUS_OK}.
+     *
+     * @param slot a int.
+     * @return a long.
+     */
+    public long getLong(int slot) {
+        return longs[slot];
+    }
+
+    /**
+     * <p>getInt.</p>
+     *
+     * @param slot a int.
+     * @return the value of the slot as an int. See {@link #getLong(int)}.
+     */
+    public int getInt(int slot) {
+        return (int) longs[slot];
+    }
+
+    /**
+     * Returns the value of a numeric or binary locator as a double. Binary values are 1 or 0. Only meaningful if the
+     * status of the slot is {@link #STATUS_OK}.
+     *
+     * @param slot a int.
+     * @return a double.
+     */
+    public double getDouble(int slot) {
+        return doubles[slot];
+    }
+
+    /**
+     * <p>getBoolean.</p>
+     *
+     * @param slot a int.
+     * @return true if the value of the slot is not zero.
+     */
+    public boolean getBoolean(int slot) {
+        return longs[slot] != 0;
+    }
+
+    /**
+     * Returns the value of a locator that is neither numeric nor binary, such as a string.
+     *
+     * @param slot a int.
+     * @return the value, or null if the slot has no object value.
+     */
+    public Object getObject(int slot) {
+        return statuses[slot] == STATUS_OK ? objects[slot] : null;
+    }
+
+    /**
+     * Returns the reason a slot could not be read: an {@link com.serotonin.modbus4j.ExceptionResult} for
+     * {@link #STATUS_ERROR_RESPONSE}, a {@link com.serotonin.modbus4j.exception.ModbusTransportException} for
+     * {@link #STATUS_TRANSPORT_ERROR}, or a {@link com.serotonin.modbus4j.NotAttemptedResult} for
+     * {@link #STATUS_NOT_ATTEMPTED}.
+     *
+     * @param slot a int.
+     * @return the error, or null if the slot did not fail.
+     */
+    public Object getError(int slot) {
+        return statuses[slot] != STATUS_OK && statuses[slot] != STATUS_NOT_READ ? objects[slot] : null;
+    }
+
+    /**
+     * Marks all slots as not read.
+     */
+    public void clear() {
+        Arrays.fill(statuses, STATUS_NOT_READ);
+        Arrays.fill(objects, null);
+    }
+
+    void setNumber(int slot, long longValue, double doubleValue) {
+        statuses[slot] = STATUS_OK;
+        longs[slot] = longValue;
+        doubles[slot] = doubleValue;
+        objects[slot] = null;
+    }
+
+    void setValue(int slot, Object value) {
+        if (value instanceof Boolean) {
+            long l = (Boolean) value ? 1 : 0;
+            setNumber(slot, l, l);
+        }
+        else {
+            statuses[slot] = STATUS_OK;
+            longs[slot] = 0;
+            doubles[slot] = Double.NaN;
+            objects[slot] = value;
+        }
+    }
+
+    void setError(int slot, byte status, Object error) {
+        statuses[slot] = status;
+        objects[slot] = error;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < statuses.length; i++) {
+            if (i > 0)
+                sb.append(", ");
+            if (statuses[i] == STATUS_OK)
+                sb.append(objects[i] != null ? objects[i] : Double.toString(doubles[i]));
+            else if (statuses[i] == STATUS_NOT_READ)
+                sb.append("-");
+            else
+                sb.append(objects[i]);
+        }
+        return sb.append("]").toString();
+    }
+}
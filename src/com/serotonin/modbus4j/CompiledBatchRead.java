@@ -0,0 +1,245 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.serotonin.modbus4j.base.KeyedModbusLocator;
+import com.serotonin.modbus4j.base.ReadFunctionGroup;
+import com.serotonin.modbus4j.code.FunctionCode;
+import com.serotonin.modbus4j.exception.ModbusTransportException;
+import com.serotonin.modbus4j.locator.BaseLocator;
+import com.serotonin.modbus4j.locator.NumericLocator;
+import com.serotonin.modbus4j.msg.ModbusRequest;
+import com.serotonin.modbus4j.msg.ReadCoilsRequest;
+import com.serotonin.modbus4j.msg.ReadDiscreteInputsRequest;
+import com.serotonin.modbus4j.msg.ReadHoldingRegistersRequest;
+import com.serotonin.modbus4j.msg.ReadInputRegistersRequest;
+import com.serotonin.modbus4j.util.NumericDecoder;
+
+/**
+ * <p>CompiledBatchRead class.</p>
+ *
+ * An immutable, ready-to-send form of a {@link BatchRead}, for batches that are polled over and over. The partitioning
+ * is done once, when the batch is compiled, along with the request of each group, the offset of each locator in its
+ * group's response data, and the result slot of each locator. Sending the compiled batch does no planning work, and
+ * can reuse the same {@link BatchResults}, whose slots are overwritten on each send. For large numeric batches, a
+ * {@link ColumnarBatchResults} holds the values in primitive arrays instead, so that a send creates no object per
+ * value.
+ *
+ * The batch read's time budget and splitting of failing requests are taken when the batch is compiled, and its
+ * groups keep their priority order. Cancelling the batch read also cancels sends of the compiled batch. Other changes
+ * to the batch read, or to the master's slave profiles, after compilation do not affect the compiled batch.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ * @param <K> type of the locator keys
+ */
+public class CompiledBatchRead<K> {
+    private final Group[] groups;
+    private final Map<K, Integer> slots;
+    private final boolean errorsInResults;
+    private final boolean exceptionsInResults;
+    private final boolean splitFailingRequests;
+    private final long timeBudget;
+    private final BatchRead<K> batch;
+
+    CompiledBatchRead(BatchRead<K> batch, ModbusMaster master) throws ModbusTransportException {
+        errorsInResults = batch.isErrorsInResults();
+        exceptionsInResults = batch.isExceptionsInResults();
+        splitFailingRequests = batch.isSplitFailingRequests();
+        timeBudget = batch.getTimeBudget();
+        this.batch = batch;
+
+        List<ReadFunctionGroup<K>> functionGroups = batch.getReadFunctionGroups(master);
+        Map<K, Integer> slotMap = new LinkedHashMap<>();
+        groups = new Group[functionGroups.size()];
+        for (int g = 0; g < groups.length; g++) {
+            ReadFunctionGroup<K> functionGroup = functionGroups.get(g);
+            List<KeyedModbusLocator<K>> locators = functionGroup.getLocators();
+
+            BaseLocator<?>[] groupLocators = new BaseLocator<?>[locators.size()];
+            NumericDecoder[] decoders = new NumericDecoder[locators.size()];
+            int[] dataOffsets = new int[locators.size()];
+            int[] groupSlots = new int[locators.size()];
+            for (int i = 0; i < groupLocators.length; i++) {
+                KeyedModbusLocator<K> locator = locators.get(i);
+                groupLocators[i] = locator.getLocator();
+                if (groupLocators[i] instanceof NumericLocator)
+                    decoders[i] = ((NumericLocator) groupLocators[i]).getDecoder();
+                dataOffsets[i] = locator.getOffset() - functionGroup.getStartOffset();
+
+                Integer slot = slotMap.get(locator.getKey());
+                if (slot == null) {
+                    slot = slotMap.size();
+                    slotMap.put(locator.getKey(), slot);
+                }
+                groupSlots[i] = slot;
+            }
+
+            groups[g] = new Group(functionGroup, createRequest(functionGroup), groupLocators, decoders, dataOffsets,
+                    groupSlots);
+        }
+        slots = Collections.unmodifiableMap(slotMap);
+    }
+
+    /**
+     * <p>createResults.</p>
+     *
+     * @return a new results object that can be passed to
+     *         {@link ModbusMaster#send(CompiledBatchRead, BatchResults)} on every send.
+     */
+    public BatchResults<K> createResults() {
+        return new BatchResults<>(slots);
+    }
+
+    /**
+     * <p>createColumnarResults.</p>
+     *
+     * @return a new columnar results object that can be passed to
+     *         {@link ModbusMaster#send(CompiledBatchRead, ColumnarBatchResults)} on every send.
+     */
+    public ColumnarBatchResults createColumnarResults() {
+        return new ColumnarBatchResults(slots.size());
+    }
+
+    /**
+     * <p>getSlot.</p>
+     *
+     * @param key a K object.
+     * @return the slot of the key's value in the results, or -1 if the key is not in the batch.
+     */
+    public int getSlot(K key) {
+        Integer slot = slots.get(key);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * <p>getKeys.</p>
+     *
+     * @return the keys of the batch, in slot order.
+     */
+    public List<K> getKeys() {
+        return Collections.unmodifiableList(new ArrayList<>(slots.keySet()));
+    }
+
+    /**
+     * <p>getRequestCount.</p>
+     *
+     * @return the number of requests that each send makes.
+     */
+    public int getRequestCount() {
+        return groups.length;
+    }
+
+    /**
+     * <p>isErrorsInResults.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isErrorsInResults() {
+        return errorsInResults;
+    }
+
+    /**
+     * <p>isExceptionsInResults.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isExceptionsInResults() {
+        return exceptionsInResults;
+    }
+
+    /**
+     * <p>isSplitFailingRequests.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isSplitFailingRequests() {
+        return splitFailingRequests;
+    }
+
+    /**
+     * <p>Getter for the field <code>timeBudget</code>.</p>
+     *
+     * @return a long.
+     */
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    /**
+     * <p>isCancel.</p>
+     *
+     * @return whether the batch read that was compiled has been cancelled.
+     */
+    public boolean isCancel() {
+        return batch.isCancel();
+    }
+
+    Group[] getGroups() {
+        return groups;
+    }
+
+    private static ModbusRequest createRequest(ReadFunctionGroup<?> functionGroup) throws ModbusTransportException {
+        int slaveId = functionGroup.getSlaveAndRange().getSlaveId();
+        int startOffset = functionGroup.getStartOffset();
+        int length = functionGroup.getLength();
+
+        if (functionGroup.getFunctionCode() == FunctionCode.READ_COILS)
+            return new ReadCoilsRequest(slaveId, startOffset, length);
+        if (functionGroup.getFunctionCode() == FunctionCode.READ_DISCRETE_INPUTS)
+            return new ReadDiscreteInputsRequest(slaveId, startOffset, length);
+        if (functionGroup.getFunctionCode() == FunctionCode.READ_HOLDING_REGISTERS)
+            return new ReadHoldingRegistersRequest(slaveId, startOffset, length);
+        if (functionGroup.getFunctionCode() == FunctionCode.READ_INPUT_REGISTERS)
+            return new ReadInputRegistersRequest(slaveId, startOffset, length);
+        throw new RuntimeException("Unsupported function");
+    }
+
+    /**
+     * A single request of the batch, with, for each of its locators, the decoder of numeric locators, the offset of
+     * the locator's data in the response and the slot of its result. The function group is kept for splitting the
+     * request if it fails.
+     */
+    static class Group {
+        final ReadFunctionGroup<?> functionGroup;
+        final ModbusRequest request;
+        final BaseLocator<?>[] locators;
+        final NumericDecoder[] decoders;
+        final int[] dataOffsets;
+        final int[] slots;
+
+        Group(ReadFunctionGroup<?> functionGroup, ModbusRequest request, BaseLocator<?>[] locators,
+                NumericDecoder[] decoders, int[] dataOffsets, int[] slots) {
+            this.functionGroup = functionGroup;
+            this.request = request;
+            this.locators = locators;
+            this.decoders = decoders;
+            this.dataOffsets = dataOffsets;
+            this.slots = slots;
+        }
+    }
+}
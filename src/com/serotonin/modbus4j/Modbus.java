@@ -20,10 +20,15 @@
  */
 package com.serotonin.modbus4j;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
 import com.serotonin.modbus4j.code.RegisterRange;
 import com.serotonin.modbus4j.exception.ModbusTransportException;
 import com.serotonin.modbus4j.sero.messaging.DefaultMessagingExceptionHandler;
 import com.serotonin.modbus4j.sero.messaging.MessagingExceptionHandler;
+import com.serotonin.modbus4j.sero.util.ThreadFactories;
 
 /**
  * Base level for masters and slaves/listeners
@@ -40,12 +45,16 @@ public class Modbus {
     public static final int DEFAULT_MAX_READ_REGISTER_COUNT = 125;
     /** Constant <code>DEFAULT_MAX_WRITE_REGISTER_COUNT=120</code> */
     public static final int DEFAULT_MAX_WRITE_REGISTER_COUNT = 120;
+    /** Constant <code>DEFAULT_MAX_WRITE_BIT_COUNT=1968</code> */
+    public static final int DEFAULT_MAX_WRITE_BIT_COUNT = 1968;
 
     private MessagingExceptionHandler exceptionHandler = new DefaultMessagingExceptionHandler();
 
     private int maxReadBitCount = DEFAULT_MAX_READ_BIT_COUNT;
     private int maxReadRegisterCount = DEFAULT_MAX_READ_REGISTER_COUNT;
     private int maxWriteRegisterCount = DEFAULT_MAX_WRITE_REGISTER_COUNT;
+    private int maxWriteBitCount = DEFAULT_MAX_WRITE_BIT_COUNT;
+    private ThreadFactory threadFactory;
 
     /**
      * <p>getMaxReadCount.</p>
@@ -65,6 +74,23 @@ public class Modbus {
         return -1;
     }
 
+    /**
+     * <p>getMaxWriteCount.</p>
+     *
+     * @param registerRange a int.
+     * @return the number of coils or registers that can be written with a single request, or -1 if the range is not
+     *         writable.
+     */
+    public int getMaxWriteCount(int registerRange) {
+        switch (registerRange) {
+        case RegisterRange.COIL_STATUS:
+            return maxWriteBitCount;
+        case RegisterRange.HOLDING_REGISTER:
+            return maxWriteRegisterCount;
+        }
+        return -1;
+    }
+
     /**
      * <p>validateNumberOfBits.</p>
      *
@@ -161,4 +187,65 @@ public class Modbus {
     public void setMaxWriteRegisterCount(int maxWriteRegisterCount) {
         this.maxWriteRegisterCount = maxWriteRegisterCount;
     }
+
+    /**
+     * <p>Getter for the field <code>maxWriteBitCount</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getMaxWriteBitCount() {
+        return maxWriteBitCount;
+    }
+
+    /**
+     * <p>Setter for the field <code>maxWriteBitCount</code>.</p>
+     *
+     * @param maxWriteBitCount a int.
+     */
+    public void setMaxWriteBitCount(int maxWriteBitCount) {
+        this.maxWriteBitCount = maxWriteBitCount;
+    }
+
+    /**
+     * <p>Getter for the field <code>threadFactory</code>.</p>
+     *
+     * @return a {@link java.util.concurrent.ThreadFactory} object, or null if the defaults are used.
+     */
+    public ThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    /**
+     * Sets the factory of the threads that this master or slave starts for its connections and listeners. Use
+     * {@link com.serotonin.modbus4j.sero.util.ThreadFactories#createVirtualThreadFactory(String)} to run them on
+     * virtual threads. Must be set before the master is initialized or the slave is started. Null restores the
+     * default platform threads.
+     *
+     * @param threadFactory a {@link java.util.concurrent.ThreadFactory} object.
+     */
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * <p>createExecutorService.</p>
+     *
+     * @return a new executor that runs each task on a thread from the thread factory.
+     */
+    protected ExecutorService createExecutorService() {
+        if (threadFactory == null)
+            return Executors.newCachedThreadPool();
+        return Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * <p>createThread.</p>
+     *
+     * @param runnable a {@link java.lang.Runnable} object.
+     * @param name a {@link java.lang.String} object.
+     * @return a new, unstarted thread from the thread factory.
+     */
+    protected Thread createThread(Runnable runnable, String name) {
+        return ThreadFactories.createThread(threadFactory, runnable, name);
+    }
 }
@@ -20,12 +20,16 @@
  */
 package com.serotonin.modbus4j;
 
+import java.util.concurrent.ThreadFactory;
+
 import com.serotonin.modbus4j.base.ModbusUtils;
 import com.serotonin.modbus4j.code.RegisterRange;
 import com.serotonin.modbus4j.exception.ModbusIdException;
 import com.serotonin.modbus4j.exception.ModbusTransportException;
 import com.serotonin.modbus4j.ip.IpParameters;
 import com.serotonin.modbus4j.ip.listener.TcpListener;
+import com.serotonin.modbus4j.ip.tcp.NioTcpSlave;
+import com.serotonin.modbus4j.ip.tcp.PooledTcpMaster;
 import com.serotonin.modbus4j.ip.tcp.TcpMaster;
 import com.serotonin.modbus4j.ip.tcp.TcpSlave;
 import com.serotonin.modbus4j.ip.udp.UdpMaster;
@@ -48,6 +52,27 @@ import com.serotonin.modbus4j.serial.rtu.RtuSlave;
  * @version 5.0.0
  */
 public class ModbusFactory {
+    private ThreadFactory threadFactory;
+
+    /**
+     * <p>Getter for the field <code>threadFactory</code>.</p>
+     *
+     * @return a {@link java.util.concurrent.ThreadFactory} object.
+     */
+    public ThreadFactory getThreadFactory() {
+        return threadFactory;
+    }
+
+    /**
+     * Sets the thread factory that is given to every master and slave this factory creates. See
+     * {@link com.serotonin.modbus4j.Modbus#setThreadFactory(ThreadFactory)}.
+     *
+     * @param threadFactory a {@link java.util.concurrent.ThreadFactory} object.
+     */
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
     //
     // Modbus masters
     //
@@ -58,7 +83,7 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusMaster} object.
      */
     public ModbusMaster createRtuMaster(SerialPortWrapper wrapper) {
-        return new RtuMaster(wrapper);
+        return configure(new RtuMaster(wrapper));
     }
     
     /**
@@ -68,7 +93,7 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusMaster} object.
      */
     public ModbusMaster createAsciiMaster(SerialPortWrapper wrapper) {
-        return new AsciiMaster(wrapper);
+        return configure(new AsciiMaster(wrapper));
     }
 
     /**
@@ -79,7 +104,7 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusMaster} object.
      */
     public ModbusMaster createTcpMaster(IpParameters params, boolean keepAlive) {
-        return new TcpMaster(params, keepAlive);
+        return configure(new TcpMaster(params, keepAlive));
     }
 
     /**
@@ -91,7 +116,18 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusMaster} object.
      */
     public ModbusMaster createTcpMaster(IpParameters params, boolean keepAlive, Integer lingerTime) {
-        return new TcpMaster(params, keepAlive,lingerTime);
+        return configure(new TcpMaster(params, keepAlive,lingerTime));
+    }
+
+    /**
+     * <p>createPooledTcpMaster.</p>
+     *
+     * @param params a {@link com.serotonin.modbus4j.ip.IpParameters} object.
+     * @param poolSize the maximum number of connections to open to the endpoint.
+     * @return a {@link com.serotonin.modbus4j.ModbusMaster} object.
+     */
+    public ModbusMaster createPooledTcpMaster(IpParameters params, int poolSize) {
+        return configure(new PooledTcpMaster(params, poolSize));
     }
 
     /**
@@ -101,7 +137,7 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusMaster} object.
      */
     public ModbusMaster createUdpMaster(IpParameters params) {
-        return new UdpMaster(params);
+        return configure(new UdpMaster(params));
     }
 
     /**
@@ -111,7 +147,7 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusMaster} object.
      */
     public ModbusMaster createTcpListener(IpParameters params) {
-        return new TcpListener(params);
+        return configure(new TcpListener(params));
     }
 
     //
@@ -124,7 +160,7 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusSlaveSet} object.
      */
     public ModbusSlaveSet createRtuSlave(SerialPortWrapper wrapper) {
-        return new RtuSlave(wrapper);
+        return configure(new RtuSlave(wrapper));
     }
 
     /**
@@ -134,7 +170,7 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusSlaveSet} object.
      */
     public ModbusSlaveSet createAsciiSlave(SerialPortWrapper wrapper) {
-        return new AsciiSlave(wrapper);
+        return configure(new AsciiSlave(wrapper));
     }
 
     /**
@@ -144,7 +180,18 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusSlaveSet} object.
      */
     public ModbusSlaveSet createTcpSlave(boolean encapsulated) {
-        return new TcpSlave(encapsulated);
+        return configure(new TcpSlave(encapsulated));
+    }
+
+    /**
+     * <p>createNioTcpSlave.</p>
+     *
+     * @param encapsulated a boolean.
+     * @param eventLoopCount the number of selector threads that serve the client connections.
+     * @return a {@link com.serotonin.modbus4j.ModbusSlaveSet} object.
+     */
+    public ModbusSlaveSet createNioTcpSlave(boolean encapsulated, int eventLoopCount) {
+        return configure(new NioTcpSlave(ModbusUtils.TCP_PORT, encapsulated, eventLoopCount));
     }
 
     /**
@@ -154,7 +201,7 @@ public class ModbusFactory {
      * @return a {@link com.serotonin.modbus4j.ModbusSlaveSet} object.
      */
     public ModbusSlaveSet createUdpSlave(boolean encapsulated) {
-        return new UdpSlave(encapsulated);
+        return configure(new UdpSlave(encapsulated));
     }
 
     //
@@ -186,4 +233,10 @@ public class ModbusFactory {
 
         return new ReadHoldingRegistersRequest(slaveId, offset, length);
     }
+
+    private <T extends Modbus> T configure(T modbus) {
+        if (threadFactory != null)
+            modbus.setThreadFactory(threadFactory);
+        return modbus;
+    }
 }
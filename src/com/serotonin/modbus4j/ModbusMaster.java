@@ -20,14 +20,31 @@
  */
 package com.serotonin.modbus4j;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import com.serotonin.modbus4j.base.KeyedModbusLocator;
 import com.serotonin.modbus4j.base.ReadFunctionGroup;
 import com.serotonin.modbus4j.base.SlaveProfile;
+import com.serotonin.modbus4j.base.WriteFunctionGroup;
 import com.serotonin.modbus4j.code.DataType;
 import com.serotonin.modbus4j.code.ExceptionCode;
 import com.serotonin.modbus4j.code.FunctionCode;
@@ -36,6 +53,7 @@ import com.serotonin.modbus4j.exception.ErrorResponseException;
 import com.serotonin.modbus4j.exception.InvalidDataConversionException;
 import com.serotonin.modbus4j.exception.ModbusInitException;
 import com.serotonin.modbus4j.exception.ModbusTransportException;
+import com.serotonin.modbus4j.locator.ArrayLocator;
 import com.serotonin.modbus4j.locator.BaseLocator;
 import com.serotonin.modbus4j.locator.BinaryLocator;
 import com.serotonin.modbus4j.locator.NumericLocator;
@@ -46,6 +64,7 @@ import com.serotonin.modbus4j.msg.ReadDiscreteInputsRequest;
 import com.serotonin.modbus4j.msg.ReadHoldingRegistersRequest;
 import com.serotonin.modbus4j.msg.ReadInputRegistersRequest;
 import com.serotonin.modbus4j.msg.ReadResponse;
+import com.serotonin.modbus4j.msg.ReadWriteMultipleRegistersRequest;
 import com.serotonin.modbus4j.msg.WriteCoilRequest;
 import com.serotonin.modbus4j.msg.WriteCoilsRequest;
 import com.serotonin.modbus4j.msg.WriteMaskRegisterRequest;
@@ -56,6 +75,7 @@ import com.serotonin.modbus4j.sero.log.BaseIOLog;
 import com.serotonin.modbus4j.sero.messaging.MessageControl;
 import com.serotonin.modbus4j.sero.util.ArrayUtils;
 import com.serotonin.modbus4j.sero.util.ProgressiveTask;
+import com.serotonin.modbus4j.util.NumericDecoder;
 
 /**
  * <p>Abstract ModbusMaster class.</p>
@@ -111,6 +131,23 @@ abstract public class ModbusMaster extends Modbus {
      */
     private InputStreamEPollWrapper ePoll;
 
+    /**
+     * If true, stream transports block in read() instead of polling the input stream, so responses are delivered as
+     * soon as they arrive and idle connections cause no wakeups. Ignored when an ePoll is used.
+     */
+    private boolean blockingRead;
+
+    /**
+     * Used to drive timeouts and retries of asynchronous requests. Defaults to a scheduler shared by all masters.
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Used to run blocking sends for masters that cannot complete requests asynchronously. Defaults to a pool shared
+     * by all masters.
+     */
+    private Executor asyncExecutor;
+
     private final Map<Integer, SlaveProfile> slaveProfiles = new HashMap<>();
     protected boolean initialized;
 
@@ -159,6 +196,146 @@ abstract public class ModbusMaster extends Modbus {
      */
     abstract public ModbusResponse sendImpl(ModbusRequest request) throws ModbusTransportException;
 
+    /**
+     * Sends the request with the given timeout and number of retries instead of the master's.
+     *
+     * @param request a {@link com.serotonin.modbus4j.msg.ModbusRequest} object.
+     * @param timeout a int.
+     * @param retries a int.
+     * @return a {@link com.serotonin.modbus4j.msg.ModbusResponse} object.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     */
+    public final ModbusResponse send(ModbusRequest request, int timeout, int retries)
+            throws ModbusTransportException {
+        request.validate(this);
+        ModbusResponse modbusResponse = sendImpl(request, timeout, retries);
+        if (validateResponse)
+            modbusResponse.validateResponse(request);
+        return modbusResponse;
+    }
+
+    /**
+     * Counterpart of sendImpl with a timeout and number of retries for this request only, used to keep requests within
+     * a time budget. Unlike sendImpl, no attempts beyond the retries should be made, e.g. on a reopened connection, so
+     * that the request takes no longer than about timeout * (retries + 1). The default implementation ignores them
+     * and uses the master's, so masters that can apply them override this.
+     *
+     * @param request a {@link com.serotonin.modbus4j.msg.ModbusRequest} object.
+     * @param timeout a int.
+     * @param retries a int.
+     * @return a {@link com.serotonin.modbus4j.msg.ModbusResponse} object.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     */
+    protected ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries)
+            throws ModbusTransportException {
+        return sendImpl(request);
+    }
+
+    /**
+     * Sends the request without blocking the calling thread. The returned future completes with the response, or
+     * exceptionally with a {@link com.serotonin.modbus4j.exception.ModbusTransportException} if the request could not
+     * be sent or timed out.
+     *
+     * Only a pipelined TCP master (see {@link #isPipelined()}) waits for the response without holding a thread. Other
+     * masters, including serial and UDP masters and TCP masters with the default max in flight of 1, run the blocking
+     * send on the async executor, so each outstanding request occupies one of its threads.
+     *
+     * @param request a {@link com.serotonin.modbus4j.msg.ModbusRequest} object.
+     * @return a future for the {@link com.serotonin.modbus4j.msg.ModbusResponse}.
+     */
+    public final CompletableFuture<ModbusResponse> sendAsync(ModbusRequest request) {
+        try {
+            request.validate(this);
+        }
+        catch (ModbusTransportException e) {
+            return failedFuture(e);
+        }
+
+        return validateResponseAsync(request, sendAsyncImpl(request));
+    }
+
+    /**
+     * Sends the request without blocking the calling thread, with the given timeout and number of retries instead of
+     * the master's.
+     *
+     * @param request a {@link com.serotonin.modbus4j.msg.ModbusRequest} object.
+     * @param timeout a int.
+     * @param retries a int.
+     * @return a future for the {@link com.serotonin.modbus4j.msg.ModbusResponse}.
+     */
+    public final CompletableFuture<ModbusResponse> sendAsync(ModbusRequest request, int timeout, int retries) {
+        try {
+            request.validate(this);
+        }
+        catch (ModbusTransportException e) {
+            return failedFuture(e);
+        }
+
+        return validateResponseAsync(request, sendAsyncImpl(request, timeout, retries));
+    }
+
+    private CompletableFuture<ModbusResponse> validateResponseAsync(ModbusRequest request,
+            CompletableFuture<ModbusResponse> response) {
+        return response.thenApply(modbusResponse -> {
+            if (validateResponse && modbusResponse != null) {
+                try {
+                    modbusResponse.validateResponse(request);
+                }
+                catch (ModbusTransportException e) {
+                    throw new CompletionException(e);
+                }
+            }
+            return modbusResponse;
+        });
+    }
+
+    /**
+     * Asynchronous counterpart of sendImpl. The default implementation runs the blocking send on the async executor.
+     * Masters that can wait for responses without holding a thread override this.
+     *
+     * @param request a {@link com.serotonin.modbus4j.msg.ModbusRequest} object.
+     * @return a future for the {@link com.serotonin.modbus4j.msg.ModbusResponse}.
+     */
+    protected CompletableFuture<ModbusResponse> sendAsyncImpl(ModbusRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendImpl(request);
+            }
+            catch (ModbusTransportException e) {
+                throw new CompletionException(e);
+            }
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * Asynchronous counterpart of sendImpl with a timeout and number of retries for this request only.
+     *
+     * @param request a {@link com.serotonin.modbus4j.msg.ModbusRequest} object.
+     * @param timeout a int.
+     * @param retries a int.
+     * @return a future for the {@link com.serotonin.modbus4j.msg.ModbusResponse}.
+     */
+    protected CompletableFuture<ModbusResponse> sendAsyncImpl(ModbusRequest request, int timeout, int retries) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sendImpl(request, timeout, retries);
+            }
+            catch (ModbusTransportException e) {
+                throw new CompletionException(e);
+            }
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * Whether the master can have several requests outstanding at once, so that requests sent with sendAsync are
+     * pipelined rather than sent one at a time.
+     *
+     * @return a boolean.
+     */
+    public boolean isPipelined() {
+        return false;
+    }
+
     /**
      * Returns a value from the modbus network according to the given locator information. Various data types are
      * allowed to be requested including multi-word types. The determination of the correct request message to send is
@@ -167,7 +344,9 @@ abstract public class ModbusMaster extends Modbus {
      * @param locator
      *            the information required to locate the value in the modbus network.
      * @return an object representing the value found. This will be one of Boolean, Short, Integer, Long, BigInteger,
-     *         Float, or Double. See the DataType enumeration for details on which type to expect.
+     *         Float, or Double. See the DataType enumeration for details on which type to expect. Array locators return
+     *         a primitive array, and are read with as many requests as they need; see
+     *         {@link com.serotonin.modbus4j.locator.ArrayLocator}.
      * @throws com.serotonin.modbus4j.exception.ModbusTransportException
      *             if there was an IO error or other technical failure while sending the message
      * @throws com.serotonin.modbus4j.exception.ErrorResponseException
@@ -176,12 +355,34 @@ abstract public class ModbusMaster extends Modbus {
      */
     @SuppressWarnings("unchecked")
     public <T> T getValue(BaseLocator<T> locator) throws ModbusTransportException, ErrorResponseException {
+        if (locator instanceof ArrayLocator)
+            return (T) getArrayValue((ArrayLocator) locator);
+
         BatchRead<String> batch = new BatchRead<>();
         batch.addLocator("", locator);
         BatchResults<String> result = send(batch);
         return (T) result.getValue("");
     }
 
+    /**
+     * Asynchronous counterpart of {@link #getValue(BaseLocator)}. As there, array locators are read with as many
+     * requests as they need.
+     *
+     * @param locator
+     *            the information required to locate the value in the modbus network.
+     * @return a future for the value found.
+     * @param <T> a T object.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> getValueAsync(BaseLocator<T> locator) {
+        if (locator instanceof ArrayLocator)
+            return (CompletableFuture<T>) getArrayValueAsync((ArrayLocator) locator);
+
+        BatchRead<String> batch = new BatchRead<>();
+        batch.addLocator("", locator);
+        return sendAsync(batch).thenApply(result -> (T) result.getValue(""));
+    }
+
     /**
      * Sets the given value in the modbus network according to the given locator information. Various data types are
      * allowed to be set including including multi-word types. The determination of the correct write message to send is
@@ -190,7 +391,8 @@ abstract public class ModbusMaster extends Modbus {
      * @param locator
      *            the information required to locate the value in the modbus network.
      * @param value an object representing the value to be set. This will be one of Boolean, Short, Integer, Long, BigInteger,
-     *        Float, or Double. See the DataType enumeration for details on which type to expect.
+     *        Float, or Double. See the DataType enumeration for details on which type to expect. Array locators take a
+     *        primitive array, which is written with as many requests as it needs.
      * @throws com.serotonin.modbus4j.exception.ModbusTransportException
      *             if there was an IO error or other technical failure while sending the message
      * @throws com.serotonin.modbus4j.exception.ErrorResponseException
@@ -229,6 +431,8 @@ abstract public class ModbusMaster extends Modbus {
                 short[] data = locator.valueToShorts((T) value);
                 if (data.length == 1 && !multipleWritesOnly)
                     setValue(new WriteRegisterRequest(slaveId, writeOffset, data[0]));
+                else if (locator instanceof ArrayLocator)
+                    writeArray(slaveId, writeOffset, data, ((ArrayLocator) locator).getElementRegisterCount());
                 else
                     setValue(new WriteRegistersRequest(slaveId, writeOffset, data));
             }
@@ -236,6 +440,124 @@ abstract public class ModbusMaster extends Modbus {
 
     }
 
+    /**
+     * Reads a block of coils into a bit set, without creating an object per coil. Blocks larger than the master's max
+     * read bit count are read with several requests.
+     *
+     * @param slaveId a int.
+     * @param startOffset a int.
+     * @param count the number of coils to read.
+     * @return the coils, with bit i being the value of the coil at the start offset plus i.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     */
+    public BitSet readCoils(int slaveId, int startOffset, int count) throws ModbusTransportException,
+            ErrorResponseException {
+        return readBits(slaveId, RegisterRange.COIL_STATUS, startOffset, count);
+    }
+
+    /**
+     * Reads a block of discrete inputs into a bit set. See {@link #readCoils(int, int, int)}.
+     *
+     * @param slaveId a int.
+     * @param startOffset a int.
+     * @param count the number of inputs to read.
+     * @return the inputs, with bit i being the value of the input at the start offset plus i.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     */
+    public BitSet readDiscreteInputs(int slaveId, int startOffset, int count) throws ModbusTransportException,
+            ErrorResponseException {
+        return readBits(slaveId, RegisterRange.INPUT_STATUS, startOffset, count);
+    }
+
+    /**
+     * Reads a block of holding or input registers into a new array. See
+     * {@link #readRegisters(int, int, int, int, ShortBuffer)}.
+     *
+     * @param slaveId a int.
+     * @param range either {@link RegisterRange#HOLDING_REGISTER} or {@link RegisterRange#INPUT_REGISTER}.
+     * @param startOffset a int.
+     * @param count the number of registers to read.
+     * @return the registers.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     */
+    public short[] readRegisters(int slaveId, int range, int startOffset, int count)
+            throws ModbusTransportException, ErrorResponseException {
+        short[] registers = new short[count];
+        readRegisters(slaveId, range, startOffset, count, ShortBuffer.wrap(registers));
+        return registers;
+    }
+
+    /**
+     * Reads a block of holding or input registers into the given buffer, which is advanced by the count. Blocks larger
+     * than the max read register count, or the slave's learned max read count, are read with several requests, which
+     * are sent concurrently if the master is pipelined. Apart from the requests and responses themselves nothing is
+     * allocated, so a buffer that is reused makes this suitable for reading large blocks at a high rate.
+     *
+     * @param slaveId a int.
+     * @param range either {@link RegisterRange#HOLDING_REGISTER} or {@link RegisterRange#INPUT_REGISTER}.
+     * @param startOffset a int.
+     * @param count the number of registers to read.
+     * @param dest the buffer to put the registers in.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     */
+    public void readRegisters(int slaveId, int range, int startOffset, int count, ShortBuffer dest)
+            throws ModbusTransportException, ErrorResponseException {
+        if (range != RegisterRange.HOLDING_REGISTER && range != RegisterRange.INPUT_REGISTER)
+            throw new RuntimeException("Registers can only be read from the holding register or input register ranges");
+        if (count < 1)
+            throw new ModbusTransportException("Invalid number of registers: " + count, slaveId);
+        if (dest.remaining() < count)
+            throw new BufferOverflowException();
+
+        int maxCount = getMaxReadCount(slaveId, range);
+        int functionCode = RegisterRange.getReadFunctionCode(range);
+        int requestCount = (count + maxCount - 1) / maxCount;
+        ModbusRequest[] requests = new ModbusRequest[requestCount];
+        for (int i = 0; i < requestCount; i++)
+            requests[i] = createReadRequest(slaveId, functionCode, startOffset + i * maxCount,
+                    Math.min(maxCount, count - i * maxCount));
+
+        if (requestCount > 1 && isPipelined()) {
+            List<CompletableFuture<ModbusResponse>> responses = new ArrayList<>(requestCount);
+            for (ModbusRequest request : requests)
+                responses.add(sendAsync(request));
+            for (int i = 0; i < requestCount; i++)
+                putRegisters(requests[i], Math.min(maxCount, count - i * maxCount), getResponse(responses.get(i),
+                        slaveId), dest);
+        }
+        else {
+            for (int i = 0; i < requestCount; i++)
+                putRegisters(requests[i], Math.min(maxCount, count - i * maxCount), send(requests[i]), dest);
+        }
+    }
+
+    /**
+     * Writes a block of coils from a bit set. Blocks larger than the master's max write bit count are written with
+     * several requests.
+     *
+     * @param slaveId a int.
+     * @param startOffset a int.
+     * @param values the values to write, with bit i being the value of the coil at the start offset plus i.
+     * @param count the number of coils to write.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     */
+    public void writeCoils(int slaveId, int startOffset, BitSet values, int count) throws ModbusTransportException,
+            ErrorResponseException {
+        if (count < 1)
+            throw new ModbusTransportException("Invalid number of bits: " + count, slaveId);
+
+        int maxCount = getMaxWriteCount(RegisterRange.COIL_STATUS);
+        for (int done = 0; done < count; done += maxCount) {
+            int length = Math.min(maxCount, count - done);
+            setValue(new WriteCoilsRequest(slaveId, startOffset + done, values.get(done, done + length), length));
+        }
+    }
+
     /**
      * Node scanning. Returns a list of slave nodes that respond to a read exception status request (perhaps with an
      * error, but respond nonetheless).
@@ -279,7 +601,7 @@ abstract public class ModbusMaster extends Modbus {
             }
         };
 
-        new Thread(task).start();
+        createThread(task, "Modbus4J slave node scan").start();
 
         return task;
     }
@@ -301,6 +623,94 @@ abstract public class ModbusMaster extends Modbus {
         return true;
     }
 
+    /**
+     * Probes the given slave for its limits in reading the given range, and notes them in its profile, so that
+     * subsequent batch reads are planned to the largest requests that the slave accepts. Three things are learned:
+     * <ul>
+     * <li>whether the slave supports the range's read function at all,</li>
+     * <li>the addresses between the start and end offsets that cannot be read, found by reading the span in requests
+     * of the master's max read count and bisecting those that fail with an illegal data address or illegal data value
+     * exception, or get no response, since some slaves ignore reads that are longer than they accept. Only single
+     * addresses that fail with an illegal data address exception are noted,</li>
+     * <li>the largest number of registers or bits it accepts in one read, found by a binary search of read lengths on
+     * the longest stretch of the span without unreadable addresses, up to the master's limit. Longer reads are only
+     * possible if the master's limit has been raised, e.g. for a gateway that accepts them.</li>
+     * </ul>
+     * Since every address of the stretch can be read, a read of it that is refused with an illegal data value or
+     * illegal data address exception is taken to be too long. Any other exception, or no response at all, ends the
+     * search without noting a limit. Probing sends a number of requests, so this is meant to be done once when a slave
+     * is commissioned, not on every poll.
+     *
+     * @param slaveId a int.
+     * @param range a int.
+     * @param startOffset a int.
+     * @param endOffset a int, inclusive.
+     * @return the slave's profile.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if the slave does not respond to a read of
+     *             the start offset, or to a read of a single address while its unreadable addresses are being found.
+     * @throws java.lang.IllegalArgumentException if the slave id is the broadcast id 0, to which no slave responds.
+     */
+    public SlaveProfile discoverSlaveProfile(int slaveId, int range, int startOffset, int endOffset)
+            throws ModbusTransportException {
+        if (slaveId == 0)
+            throw new IllegalArgumentException("Cannot discover the profile of the broadcast slave id");
+
+        SlaveProfile profile = getSlaveProfile(slaveId);
+        byte functionCode = (byte) RegisterRange.getReadFunctionCode(range);
+
+        // Check that the function is supported at all.
+        ModbusResponse response = send(createReadRequest(slaveId, functionCode, startOffset, 1));
+        if (response.isException() && response.getExceptionCode() == ExceptionCode.ILLEGAL_FUNCTION) {
+            profile.setFunctionSupported(functionCode, false);
+            return profile;
+        }
+        profile.setFunctionSupported(functionCode, true);
+
+        // Find the holes first, so that the length search can be done where a refused read can only be due to its
+        // length.
+        int maxReadCount = getMaxReadCount(range);
+        for (int offset = startOffset; offset <= endOffset; offset += maxReadCount)
+            findUnreadableRanges(slaveId, range, functionCode, offset, Math.min(offset + maxReadCount - 1,
+                    endOffset), profile);
+
+        // Find the longest stretch without holes.
+        int stretchStart = startOffset;
+        int stretchLength = 0;
+        int runStart = startOffset;
+        for (int offset = startOffset; offset <= endOffset + 1; offset++) {
+            if (offset > endOffset || profile.isUnreadable(range, offset, offset)) {
+                if (offset - runStart > stretchLength) {
+                    stretchStart = runStart;
+                    stretchLength = offset - runStart;
+                }
+                runStart = offset + 1;
+            }
+        }
+        if (stretchLength == 0)
+            return profile;
+
+        // Binary search for the longest read on the stretch. A length is accepted if it gets a normal response.
+        int limit = Math.min(maxReadCount, stretchLength);
+        int good = 1;
+        int bad = limit + 1;
+        while (bad - good > 1) {
+            int length = (good + bad) >>> 1;
+            Boolean accepted = isLengthAccepted(slaveId, functionCode, stretchStart, length);
+            if (accepted == null)
+                // The slave didn't say whether the length was the problem, so don't guess.
+                return profile;
+            if (accepted)
+                good = length;
+            else
+                bad = length;
+        }
+        // Only a length that was actually refused says anything about the slave.
+        if (good < limit)
+            profile.setMaxReadCount(range, good);
+
+        return profile;
+    }
+
     /**
      * <p>Getter for the field <code>retries</code>.</p>
      *
@@ -418,6 +828,66 @@ abstract public class ModbusMaster extends Modbus {
         this.ePoll = ePoll;
     }
 
+    /**
+     * <p>isBlockingRead.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isBlockingRead() {
+        return blockingRead;
+    }
+
+    /**
+     * <p>Setter for the field <code>blockingRead</code>.</p>
+     *
+     * @param blockingRead a boolean.
+     */
+    public void setBlockingRead(boolean blockingRead) {
+        this.blockingRead = blockingRead;
+    }
+
+    /**
+     * <p>Getter for the field <code>scheduler</code>.</p>
+     *
+     * @return a {@link java.util.concurrent.ScheduledExecutorService} object.
+     */
+    public ScheduledExecutorService getScheduler() {
+        if (scheduler == null)
+            return SharedExecutors.SCHEDULER;
+        return scheduler;
+    }
+
+    /**
+     * Sets the scheduler used for timeouts and retries of asynchronous requests. A null value restores the shared
+     * default.
+     *
+     * @param scheduler a {@link java.util.concurrent.ScheduledExecutorService} object.
+     */
+    public void setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * <p>Getter for the field <code>asyncExecutor</code>.</p>
+     *
+     * @return a {@link java.util.concurrent.Executor} object.
+     */
+    public Executor getAsyncExecutor() {
+        if (asyncExecutor == null)
+            return SharedExecutors.ASYNC_EXECUTOR;
+        return asyncExecutor;
+    }
+
+    /**
+     * Sets the executor used to run blocking sends for masters that cannot complete requests asynchronously. A null
+     * value restores the shared default.
+     *
+     * @param asyncExecutor a {@link java.util.concurrent.Executor} object.
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
     /**
      * Useful for sending a number of polling commands at once, or at least in as optimal a batch as possible.
      *
@@ -433,10 +903,20 @@ abstract public class ModbusMaster extends Modbus {
 
         BatchResults<K> results = new BatchResults<>();
         List<ReadFunctionGroup<K>> functionGroups = batch.getReadFunctionGroups(this);
+        long deadline = getDeadline(batch);
+        Set<Integer> unreachableSlaves = new HashSet<>();
 
         // Execute each read function and process the results.
         for (ReadFunctionGroup<K> functionGroup : functionGroups) {
-            sendFunctionGroup(functionGroup, results, batch.isErrorsInResults(), batch.isExceptionsInResults());
+            int slaveId = functionGroup.getSlaveAndRange().getSlaveId();
+            if (unreachableSlaves.contains(slaveId))
+                setNotAttempted(functionGroup, results, NotAttemptedResult.SLAVE_UNREACHABLE);
+            else {
+                sendFunctionGroup(functionGroup, results, batch.isErrorsInResults(), batch.isExceptionsInResults(),
+                        batch.isSplitFailingRequests(), deadline);
+                if (isUnreachable(functionGroup, results, deadline))
+                    unreachableSlaves.add(slaveId);
+            }
             if (batch.isCancel())
                 break;
         }
@@ -444,66 +924,328 @@ abstract public class ModbusMaster extends Modbus {
         return results;
     }
 
-    //
-    //
-    // Protected methods
-    //
     /**
-     * <p>getMessageControl.</p>
+     * Sends a compiled batch, returning its results in a new results object.
      *
-     * @return a {@link com.serotonin.modbus4j.sero.messaging.MessageControl} object.
+     * @param batch a {@link com.serotonin.modbus4j.CompiledBatchRead} object.
+     * @return a {@link com.serotonin.modbus4j.BatchResults} object.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     * @param <K> type of result
      */
-    protected MessageControl getMessageControl() {
-        MessageControl conn = new MessageControl();
-        conn.setRetries(getRetries());
-        conn.setTimeout(getTimeout());
-        conn.setDiscardDataDelay(getDiscardDataDelay());
-        conn.setExceptionHandler(getExceptionHandler());
-        conn.setIoLog(ioLog);
-        return conn;
+    public <K> BatchResults<K> send(CompiledBatchRead<K> batch) throws ModbusTransportException,
+            ErrorResponseException {
+        return send(batch, batch.createResults());
     }
 
     /**
-     * <p>closeMessageControl.</p>
+     * Sends a compiled batch, writing its results into the given results object, which must have been created by
+     * {@link com.serotonin.modbus4j.CompiledBatchRead#createResults()}. Results from a previous send are overwritten,
+     * so a poller can reuse the same object on every cycle. As with {@link #send(BatchRead)}, the time budget,
+     * cancellation and splitting of failing requests of the batch are honoured; the results of groups that are not
+     * sent because the batch was cancelled are cleared.
      *
-     * @param conn a {@link com.serotonin.modbus4j.sero.messaging.MessageControl} object.
+     * @param batch a {@link com.serotonin.modbus4j.CompiledBatchRead} object.
+     * @param results a {@link com.serotonin.modbus4j.BatchResults} object.
+     * @return the given results object.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     * @param <K> type of result
      */
-    protected void closeMessageControl(MessageControl conn) {
-        if (conn != null)
-            conn.close();
+    public <K> BatchResults<K> send(CompiledBatchRead<K> batch, BatchResults<K> results)
+            throws ModbusTransportException, ErrorResponseException {
+        if (!initialized)
+            throw new ModbusTransportException("not initialized");
+
+        CompiledBatchRead.Group[] groups = batch.getGroups();
+        long deadline = getDeadline(batch.getTimeBudget());
+        Set<Integer> unreachableSlaves = new HashSet<>();
+
+        for (int g = 0; g < groups.length; g++) {
+            CompiledBatchRead.Group group = groups[g];
+            int slaveId = group.request.getSlaveId();
+            if (unreachableSlaves.contains(slaveId)) {
+                for (int slot : group.slots)
+                    results.setResult(slot, NotAttemptedResult.SLAVE_UNREACHABLE);
+            }
+            else {
+                sendCompiledGroup(group, results, batch.isErrorsInResults(), batch.isExceptionsInResults(),
+                        batch.isSplitFailingRequests(), deadline);
+                if (isDeadlineAhead(deadline)
+                        && results.getSlotValue(group.slots[0]) instanceof ModbusTransportException)
+                    unreachableSlaves.add(slaveId);
+            }
+            if (batch.isCancel()) {
+                for (int rest = g + 1; rest < groups.length; rest++) {
+                    for (int slot : groups[rest].slots)
+                        results.setResult(slot, null);
+                }
+                break;
+            }
+        }
+
+        return results;
     }
 
-    //
-    //
-    // Private stuff
-    //
     /**
-     * This method assumes that all locators have already been pre-sorted and grouped into valid requests, say, by the
-     * createRequestGroups method.
+     * Sends a compiled batch, writing its results into the given columnar results object, which must have been
+     * created by {@link com.serotonin.modbus4j.CompiledBatchRead#createColumnarResults()}. Numeric and binary values
+     * are decoded straight into the object's primitive arrays. As with
+     * {@link #send(CompiledBatchRead, BatchResults)}, the object can be reused on every cycle, and the batch's time
+     * budget, cancellation and splitting of failing requests are honoured. Slots that are not sent because of the time
+     * budget or an unreachable slave get {@link ColumnarBatchResults#STATUS_NOT_ATTEMPTED}, and those of groups that
+     * are not sent because the batch was cancelled get {@link ColumnarBatchResults#STATUS_NOT_READ}.
+     *
+     * @param batch a {@link com.serotonin.modbus4j.CompiledBatchRead} object.
+     * @param results a {@link com.serotonin.modbus4j.ColumnarBatchResults} object.
+     * @return the given results object.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     * @param <K> type of result
      */
-    private <K> void sendFunctionGroup(ReadFunctionGroup<K> functionGroup, BatchResults<K> results,
-            boolean errorsInResults, boolean exceptionsInResults) throws ModbusTransportException,
-            ErrorResponseException {
-        int slaveId = functionGroup.getSlaveAndRange().getSlaveId();
-        int startOffset = functionGroup.getStartOffset();
-        int length = functionGroup.getLength();
+    public <K> ColumnarBatchResults send(CompiledBatchRead<K> batch, ColumnarBatchResults results)
+            throws ModbusTransportException, ErrorResponseException {
+        if (!initialized)
+            throw new ModbusTransportException("not initialized");
 
-        // Inspect the function group for data required to create the request.
-        ModbusRequest request;
-        if (functionGroup.getFunctionCode() == FunctionCode.READ_COILS)
-            request = new ReadCoilsRequest(slaveId, startOffset, length);
-        else if (functionGroup.getFunctionCode() == FunctionCode.READ_DISCRETE_INPUTS)
-            request = new ReadDiscreteInputsRequest(slaveId, startOffset, length);
-        else if (functionGroup.getFunctionCode() == FunctionCode.READ_HOLDING_REGISTERS)
-            request = new ReadHoldingRegistersRequest(slaveId, startOffset, length);
-        else if (functionGroup.getFunctionCode() == FunctionCode.READ_INPUT_REGISTERS)
-            request = new ReadInputRegistersRequest(slaveId, startOffset, length);
-        else
-            throw new RuntimeException("Unsupported function");
+        CompiledBatchRead.Group[] groups = batch.getGroups();
+        long deadline = getDeadline(batch.getTimeBudget());
+        Set<Integer> unreachableSlaves = new HashSet<>();
+
+        for (int g = 0; g < groups.length; g++) {
+            CompiledBatchRead.Group group = groups[g];
+            int slaveId = group.request.getSlaveId();
+            if (unreachableSlaves.contains(slaveId)) {
+                for (int slot : group.slots)
+                    results.setError(slot, ColumnarBatchResults.STATUS_NOT_ATTEMPTED,
+                            NotAttemptedResult.SLAVE_UNREACHABLE);
+            }
+            else {
+                sendCompiledGroup(group, results, batch.isErrorsInResults(), batch.isExceptionsInResults(),
+                        batch.isSplitFailingRequests(), deadline);
+                if (isDeadlineAhead(deadline)
+                        && results.getStatus(group.slots[0]) == ColumnarBatchResults.STATUS_TRANSPORT_ERROR)
+                    unreachableSlaves.add(slaveId);
+            }
+            if (batch.isCancel()) {
+                for (int rest = g + 1; rest < groups.length; rest++) {
+                    for (int slot : groups[rest].slots)
+                        results.setError(slot, ColumnarBatchResults.STATUS_NOT_READ, null);
+                }
+                break;
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #send(BatchRead)}. Function groups are still sent one after the other, but no
+     * thread is held while waiting for their responses if the master supports it.
+     *
+     * @param batch a {@link com.serotonin.modbus4j.BatchRead} object.
+     * @return a future for the {@link com.serotonin.modbus4j.BatchResults}.
+     * @param <K> type of result
+     */
+    public <K> CompletableFuture<BatchResults<K>> sendAsync(BatchRead<K> batch) {
+        if (!initialized)
+            return failedFuture(new ModbusTransportException("not initialized"));
+
+        BatchResults<K> results = new BatchResults<>();
+        List<ReadFunctionGroup<K>> functionGroups = batch.getReadFunctionGroups(this);
+
+        long deadline = getDeadline(batch);
+        // Only touched by the stages of the chain, which run one after the other.
+        Set<Integer> unreachableSlaves = new HashSet<>();
+
+        CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+        for (ReadFunctionGroup<K> functionGroup : functionGroups) {
+            int slaveId = functionGroup.getSlaveAndRange().getSlaveId();
+            chain = chain.thenCompose(v -> {
+                if (batch.isCancel())
+                    return CompletableFuture.completedFuture(null);
+                if (unreachableSlaves.contains(slaveId)) {
+                    setNotAttempted(functionGroup, results, NotAttemptedResult.SLAVE_UNREACHABLE);
+                    return CompletableFuture.completedFuture(null);
+                }
+                return sendFunctionGroupAsync(functionGroup, results, batch.isErrorsInResults(),
+                        batch.isExceptionsInResults(), batch.isSplitFailingRequests(), deadline).thenApply(read -> {
+                            if (isUnreachable(functionGroup, results, deadline))
+                                unreachableSlaves.add(slaveId);
+                            return null;
+                        });
+            });
+        }
+
+        return chain.thenApply(v -> results);
+    }
+
+    /**
+     * Writes the values of a batch in as few requests as possible. See {@link BatchWrite}.
+     *
+     * @param batch a {@link com.serotonin.modbus4j.BatchWrite} object.
+     * @return the outcome of the write of each key.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if the master is not initialized.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     * @param <K> type of the locator keys
+     */
+    public <K> BatchResults<K> send(BatchWrite<K> batch) throws ModbusTransportException, ErrorResponseException {
+        if (!initialized)
+            throw new ModbusTransportException("not initialized");
+
+        BatchResults<K> results = new BatchResults<>();
+        for (WriteFunctionGroup<K> functionGroup : batch.getWriteFunctionGroups(this, results))
+            sendWriteFunctionGroup(functionGroup, results);
+
+        return results;
+    }
+
+    /**
+     * Writes the values of a batch and then reads the locators of another, as in a control loop. Where a slave
+     * supports the read/write multiple registers function, a request that writes holding registers is combined with a
+     * request that reads holding registers of the same slave into a single transaction, saving a round trip. The
+     * remaining writes are sent as by {@link #send(BatchWrite)}, and the remaining reads after all of the writes.
+     *
+     * Each combined transaction does its write before its read, but a read may be combined with a write that comes
+     * before other writes of the batch. If a read must see all of the writes, send the batches separately.
+     *
+     * The results have the outcome of each write, as by send(BatchWrite), and the value of each read, as by
+     * {@link #send(BatchRead)}, so keys must be unique across the two batches. The read batch's errorsInResults and exceptionsInResults settings apply to the reads,
+     * whereas its time budget is ignored. A slave that responds to a combined request with an illegal function
+     * exception is noted in its profile as not supporting the function, and the requests are sent separately instead.
+     *
+     * @param write a {@link com.serotonin.modbus4j.BatchWrite} object.
+     * @param read a {@link com.serotonin.modbus4j.BatchRead} object.
+     * @return a {@link com.serotonin.modbus4j.BatchResults} object.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     * @throws com.serotonin.modbus4j.exception.ErrorResponseException if any.
+     * @param <K> type of the locator keys
+     */
+    public <K> BatchResults<K> send(BatchWrite<K> write, BatchRead<K> read) throws ModbusTransportException,
+            ErrorResponseException {
+        if (!initialized)
+            throw new ModbusTransportException("not initialized");
+
+        BatchResults<K> results = new BatchResults<>();
+        List<WriteFunctionGroup<K>> writeGroups = write.getWriteFunctionGroups(this, results);
+
+        // The holding register reads of each slave that may support read/write multiple registers. Reads that are
+        // longer than the function allows, because the master's limits were raised, are sent on their own.
+        List<ReadFunctionGroup<K>> readGroups = new ArrayList<>();
+        Map<Integer, Deque<ReadFunctionGroup<K>>> combinableReads = new HashMap<>();
+        for (ReadFunctionGroup<K> functionGroup : read.getReadFunctionGroups(this)) {
+            int slaveId = functionGroup.getSlaveAndRange().getSlaveId();
+            if (functionGroup.getFunctionCode() == FunctionCode.READ_HOLDING_REGISTERS
+                    && functionGroup.getLength() <= ReadWriteMultipleRegistersRequest.MAX_READ_COUNT
+                    && getSlaveProfile(slaveId).isFunctionSupported(FunctionCode.READ_WRITE_MULTIPLE_REGISTERS))
+                combinableReads.computeIfAbsent(slaveId, id -> new ArrayDeque<>()).add(functionGroup);
+            else
+                readGroups.add(functionGroup);
+        }
+
+        for (WriteFunctionGroup<K> writeGroup : writeGroups) {
+            Deque<ReadFunctionGroup<K>> reads = combinableReads.get(writeGroup.getSlaveAndRange().getSlaveId());
+            if (writeGroup.isCoils() || reads == null || reads.isEmpty()
+                    || writeGroup.getLength() > ReadWriteMultipleRegistersRequest.MAX_WRITE_COUNT)
+                // As with reads, writes that are longer than the function allows are sent on their own.
+                sendWriteFunctionGroup(writeGroup, results);
+            else {
+                ReadFunctionGroup<K> readGroup = reads.poll();
+                if (!sendReadWriteFunctionGroups(writeGroup, readGroup, results, read.isErrorsInResults(),
+                        read.isExceptionsInResults())) {
+                    sendWriteFunctionGroup(writeGroup, results);
+                    readGroups.add(readGroup);
+                }
+            }
+        }
+
+        for (Deque<ReadFunctionGroup<K>> reads : combinableReads.values())
+            readGroups.addAll(reads);
+        for (ReadFunctionGroup<K> functionGroup : readGroups) {
+            sendFunctionGroup(functionGroup, results, read.isErrorsInResults(), read.isExceptionsInResults(),
+                    read.isSplitFailingRequests(), 0);
+            if (read.isCancel())
+                break;
+        }
+
+        return results;
+    }
+
+    /**
+     * Returns the profile of the given slave, creating it if necessary. The profile can be used to configure the costs
+     * that batch reads use to partition their requests.
+     *
+     * @param slaveId a int.
+     * @return a {@link com.serotonin.modbus4j.base.SlaveProfile} object.
+     */
+    public SlaveProfile getSlaveProfile(int slaveId) {
+        synchronized (slaveProfiles) {
+            SlaveProfile sp = slaveProfiles.get(slaveId);
+            if (sp == null) {
+                sp = new SlaveProfile();
+                slaveProfiles.put(slaveId, sp);
+            }
+            return sp;
+        }
+    }
+
+    //
+    //
+    // Protected methods
+    //
+    /**
+     * <p>getMessageControl.</p>
+     *
+     * @return a {@link com.serotonin.modbus4j.sero.messaging.MessageControl} object.
+     */
+    protected MessageControl getMessageControl() {
+        MessageControl conn = new MessageControl();
+        conn.setRetries(getRetries());
+        conn.setTimeout(getTimeout());
+        conn.setDiscardDataDelay(getDiscardDataDelay());
+        conn.setExceptionHandler(getExceptionHandler());
+        conn.setIoLog(ioLog);
+        return conn;
+    }
+
+    /**
+     * <p>closeMessageControl.</p>
+     *
+     * @param conn a {@link com.serotonin.modbus4j.sero.messaging.MessageControl} object.
+     */
+    protected void closeMessageControl(MessageControl conn) {
+        if (conn != null)
+            conn.close();
+    }
+
+    //
+    //
+    // Private stuff
+    //
+    /**
+     * This method assumes that all locators have already been pre-sorted and grouped into valid requests, say, by the
+     * createRequestGroups method.
+     *
+     * @return true if all of the group's addresses were read with a single normal response.
+     */
+    private <K> boolean sendFunctionGroup(ReadFunctionGroup<K> functionGroup, BatchResults<K> results,
+            boolean errorsInResults, boolean exceptionsInResults, boolean splitFailingRequests, long deadline)
+            throws ModbusTransportException, ErrorResponseException {
+        ModbusRequest request = createFunctionGroupRequest(functionGroup);
 
         ReadResponse response;
         try {
-            response = (ReadResponse) send(request);
+            if (deadline == 0)
+                response = (ReadResponse) send(request);
+            else {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    setNotAttempted(functionGroup, results, NotAttemptedResult.TIME_BUDGET_EXHAUSTED);
+                    return false;
+                }
+                int timeout = getBudgetTimeout(remaining);
+                response = (ReadResponse) send(request, timeout, getBudgetRetries(remaining, timeout));
+            }
         }
         catch (ModbusTransportException e) {
             if (!exceptionsInResults)
@@ -512,9 +1254,617 @@ abstract public class ModbusMaster extends Modbus {
             for (KeyedModbusLocator<K> locator : functionGroup.getLocators())
                 results.addResult(locator.getKey(), e);
 
+            return false;
+        }
+
+        if (splitFailingRequests && isIllegalDataAddress(response)) {
+            if (functionGroup.getLocators().size() > 1) {
+                List<ReadFunctionGroup<K>> halves = splitFunctionGroup(functionGroup);
+                boolean left = sendFunctionGroup(halves.get(0), results, errorsInResults, exceptionsInResults, true,
+                        deadline);
+                boolean right = sendFunctionGroup(halves.get(1), results, errorsInResults, exceptionsInResults, true,
+                        deadline);
+                if (left && right)
+                    noteUnreadableGap(halves.get(0), halves.get(1));
+                return false;
+            }
+            noteUnreadable(functionGroup);
+        }
+
+        processFunctionGroupResponse(functionGroup, request, response, results, errorsInResults);
+        return !response.isException();
+    }
+
+    /**
+     * Asynchronous counterpart of sendFunctionGroup. The halves of a split group are sent one after the other.
+     */
+    <K> CompletableFuture<Boolean> sendFunctionGroupAsync(ReadFunctionGroup<K> functionGroup,
+            BatchResults<K> results, boolean errorsInResults, boolean exceptionsInResults,
+            boolean splitFailingRequests, long deadline) {
+        ModbusRequest request;
+        try {
+            request = createFunctionGroupRequest(functionGroup);
+        }
+        catch (ModbusTransportException e) {
+            return failedFuture(e);
+        }
+
+        CompletableFuture<ModbusResponse> sent;
+        if (deadline == 0)
+            sent = sendAsync(request);
+        else {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                setNotAttempted(functionGroup, results, NotAttemptedResult.TIME_BUDGET_EXHAUSTED);
+                return CompletableFuture.completedFuture(false);
+            }
+            int timeout = getBudgetTimeout(remaining);
+            sent = sendAsync(request, timeout, getBudgetRetries(remaining, timeout));
+        }
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        sent.whenComplete((response, t) -> {
+            try {
+                if (t != null) {
+                    Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                    if (!exceptionsInResults || !(cause instanceof ModbusTransportException)) {
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+                    for (KeyedModbusLocator<K> locator : functionGroup.getLocators())
+                        results.addResult(locator.getKey(), cause);
+                    result.complete(false);
+                    return;
+                }
+
+                ReadResponse readResponse = (ReadResponse) response;
+                if (splitFailingRequests && isIllegalDataAddress(readResponse)) {
+                    if (functionGroup.getLocators().size() > 1) {
+                        List<ReadFunctionGroup<K>> halves = splitFunctionGroup(functionGroup);
+                        sendFunctionGroupAsync(halves.get(0), results, errorsInResults, exceptionsInResults, true,
+                                deadline).thenCompose(left -> sendFunctionGroupAsync(halves.get(1), results,
+                                        errorsInResults, exceptionsInResults, true, deadline).thenApply(right -> {
+                                            if (left && right)
+                                                noteUnreadableGap(halves.get(0), halves.get(1));
+                                            return false;
+                                        }))
+                                .whenComplete((read, e) -> {
+                                    if (e != null)
+                                        result.completeExceptionally(e instanceof CompletionException
+                                                && e.getCause() != null ? e.getCause() : e);
+                                    else
+                                        result.complete(read);
+                                });
+                        return;
+                    }
+                    noteUnreadable(functionGroup);
+                }
+
+                processFunctionGroupResponse(functionGroup, request, readResponse, results, errorsInResults);
+                result.complete(!readResponse.isException());
+            }
+            catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    private static long getDeadline(BatchRead<?> batch) {
+        return getDeadline(batch.getTimeBudget());
+    }
+
+    private static long getDeadline(long timeBudget) {
+        if (timeBudget <= 0)
+            return 0;
+        return System.currentTimeMillis() + timeBudget;
+    }
+
+    /**
+     * The timeout of a request that must complete within the given time.
+     */
+    private int getBudgetTimeout(long remaining) {
+        if (timeout <= 0 || timeout > remaining)
+            return (int) Math.max(1, remaining);
+        return timeout;
+    }
+
+    /**
+     * The number of retries, at most the master's, that fit within the given time after the first attempt.
+     */
+    private int getBudgetRetries(long remaining, int budgetTimeout) {
+        return (int) Math.max(0, Math.min(retries, remaining / budgetTimeout - 1));
+    }
+
+    private static <K> void setNotAttempted(ReadFunctionGroup<K> functionGroup, BatchResults<K> results,
+            NotAttemptedResult reason) {
+        for (KeyedModbusLocator<K> locator : functionGroup.getLocators())
+            results.addResult(locator.getKey(), reason);
+    }
+
+    /**
+     * Whether the group's request, sent with a deadline, failed to get through to the slave at all. A failure after the
+     * deadline has passed may only be down to the shortened timeout, so it does not count.
+     */
+    static <K> boolean isUnreachable(ReadFunctionGroup<K> functionGroup, BatchResults<K> results, long deadline) {
+        if (!isDeadlineAhead(deadline))
+            return false;
+        return results.getValue(functionGroup.getLocators().get(0).getKey()) instanceof ModbusTransportException;
+    }
+
+    private static boolean isDeadlineAhead(long deadline) {
+        return deadline != 0 && deadline - System.currentTimeMillis() > 0;
+    }
+
+    private static boolean isIllegalDataAddress(ReadResponse response) {
+        return response.isException() && response.getExceptionCode() == ExceptionCode.ILLEGAL_DATA_ADDRESS;
+    }
+
+    /**
+     * Splits a group into two, each with half of its locators.
+     */
+    private static <K> List<ReadFunctionGroup<K>> splitFunctionGroup(ReadFunctionGroup<K> functionGroup) {
+        List<KeyedModbusLocator<K>> locators = functionGroup.getLocators();
+        int half = locators.size() / 2;
+
+        List<ReadFunctionGroup<K>> halves = new ArrayList<>(2);
+        ReadFunctionGroup<K> left = new ReadFunctionGroup<>(locators.get(0));
+        for (int i = 1; i < half; i++)
+            left.add(locators.get(i));
+        halves.add(left);
+        ReadFunctionGroup<K> right = new ReadFunctionGroup<>(locators.get(half));
+        for (int i = half + 1; i < locators.size(); i++)
+            right.add(locators.get(i));
+        halves.add(right);
+        return halves;
+    }
+
+    /**
+     * Notes the addresses of a group with a single locator that failed with an illegal data address as unreadable.
+     */
+    private void noteUnreadable(ReadFunctionGroup<?> functionGroup) {
+        getSlaveProfile(functionGroup.getSlaveAndRange().getSlaveId()).addUnreadableRange(
+                functionGroup.getSlaveAndRange().getRange(), functionGroup.getStartOffset(),
+                functionGroup.getEndOffset());
+    }
+
+    /**
+     * Both halves of a failed group were read, so the addresses that could not be read must lie in the gap between
+     * them.
+     */
+    private void noteUnreadableGap(ReadFunctionGroup<?> left, ReadFunctionGroup<?> right) {
+        if (left.getEndOffset() + 1 < right.getStartOffset())
+            getSlaveProfile(left.getSlaveAndRange().getSlaveId()).addUnreadableRange(
+                    left.getSlaveAndRange().getRange(), left.getEndOffset() + 1, right.getStartOffset() - 1);
+    }
+
+    private void sendCompiledGroup(CompiledBatchRead.Group group, BatchResults<?> results, boolean errorsInResults,
+            boolean exceptionsInResults, boolean splitFailingRequests, long deadline)
+            throws ModbusTransportException, ErrorResponseException {
+        ReadResponse response;
+        try {
+            response = sendCompiledRequest(group.request, deadline);
+        }
+        catch (ModbusTransportException e) {
+            if (!exceptionsInResults)
+                throw e;
+
+            for (int slot : group.slots)
+                results.setResult(slot, e);
+
+            return;
+        }
+
+        if (response == null) {
+            for (int slot : group.slots)
+                results.setResult(slot, NotAttemptedResult.TIME_BUDGET_EXHAUSTED);
             return;
         }
 
+        if (splitFailingRequests && isIllegalDataAddress(response)) {
+            if (group.locators.length > 1) {
+                Object[] values = sendCompiledGroupHalves(group.functionGroup, errorsInResults, exceptionsInResults,
+                        deadline);
+                for (int i = 0; i < values.length; i++)
+                    results.setResult(group.slots[i], values[i]);
+                return;
+            }
+            noteUnreadable(group.functionGroup);
+        }
+
+        if (response.isException()) {
+            if (!errorsInResults)
+                throw new ErrorResponseException(group.request, response);
+
+            ExceptionResult error = new ExceptionResult(response.getExceptionCode());
+            for (int slot : group.slots)
+                results.setResult(slot, error);
+            return;
+        }
+
+        byte[] data = response.getData();
+        for (int i = 0; i < group.locators.length; i++) {
+            Object value;
+            try {
+                value = group.locators[i].bytesToValueRealOffset(data, group.dataOffsets[i]);
+            }
+            catch (ArrayIndexOutOfBoundsException e) {
+                // As in KeyedModbusLocator, short responses are reported as illegal data addresses.
+                value = new ExceptionResult(ExceptionCode.ILLEGAL_DATA_ADDRESS);
+            }
+            results.setResult(group.slots[i], value);
+        }
+    }
+
+    private void sendCompiledGroup(CompiledBatchRead.Group group, ColumnarBatchResults results,
+            boolean errorsInResults, boolean exceptionsInResults, boolean splitFailingRequests, long deadline)
+            throws ModbusTransportException, ErrorResponseException {
+        ReadResponse response;
+        try {
+            response = sendCompiledRequest(group.request, deadline);
+        }
+        catch (ModbusTransportException e) {
+            if (!exceptionsInResults)
+                throw e;
+
+            for (int slot : group.slots)
+                results.setError(slot, ColumnarBatchResults.STATUS_TRANSPORT_ERROR, e);
+
+            return;
+        }
+
+        if (response == null) {
+            for (int slot : group.slots)
+                results.setError(slot, ColumnarBatchResults.STATUS_NOT_ATTEMPTED,
+                        NotAttemptedResult.TIME_BUDGET_EXHAUSTED);
+            return;
+        }
+
+        if (splitFailingRequests && isIllegalDataAddress(response)) {
+            if (group.locators.length > 1) {
+                Object[] values = sendCompiledGroupHalves(group.functionGroup, errorsInResults, exceptionsInResults,
+                        deadline);
+                for (int i = 0; i < values.length; i++)
+                    setColumnarResult(results, group.slots[i], group.decoders[i] != null, values[i]);
+                return;
+            }
+            noteUnreadable(group.functionGroup);
+        }
+
+        if (response.isException()) {
+            if (!errorsInResults)
+                throw new ErrorResponseException(group.request, response);
+
+            ExceptionResult error = new ExceptionResult(response.getExceptionCode());
+            for (int slot : group.slots)
+                results.setError(slot, ColumnarBatchResults.STATUS_ERROR_RESPONSE, error);
+            return;
+        }
+
+        byte[] data = response.getData();
+        for (int i = 0; i < group.locators.length; i++) {
+            int slot = group.slots[i];
+            try {
+                NumericDecoder decoder = group.decoders[i];
+                if (decoder != null) {
+                    // Decode once and derive the other column from it.
+                    if (decoder.isFloatingPoint()) {
+                        double d = decoder.decodeDouble(data, group.dataOffsets[i]);
+                        results.setNumber(slot, (long) d, d);
+                    }
+                    else {
+                        long l = decoder.decodeLong(data, group.dataOffsets[i]);
+                        results.setNumber(slot, l, decoder.longToDouble(l));
+                    }
+                }
+                else
+                    results.setValue(slot, group.locators[i].bytesToValueRealOffset(data, group.dataOffsets[i]));
+            }
+            catch (ArrayIndexOutOfBoundsException e) {
+                results.setError(slot, ColumnarBatchResults.STATUS_ERROR_RESPONSE,
+                        new ExceptionResult(ExceptionCode.ILLEGAL_DATA_ADDRESS));
+            }
+        }
+    }
+
+    /**
+     * Sends the request of a compiled group within the deadline, if there is one.
+     *
+     * @return the response, or null if the deadline has already passed.
+     */
+    private ReadResponse sendCompiledRequest(ModbusRequest request, long deadline) throws ModbusTransportException {
+        if (deadline == 0)
+            return (ReadResponse) send(request);
+
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0)
+            return null;
+        int timeout = getBudgetTimeout(remaining);
+        return (ReadResponse) send(request, timeout, getBudgetRetries(remaining, timeout));
+    }
+
+    /**
+     * Sends the halves of a compiled group whose request failed with an illegal data address, as sendFunctionGroup
+     * does, and returns the results of the group's locators in order.
+     */
+    private <K> Object[] sendCompiledGroupHalves(ReadFunctionGroup<K> functionGroup, boolean errorsInResults,
+            boolean exceptionsInResults, long deadline) throws ModbusTransportException, ErrorResponseException {
+        BatchResults<K> halfResults = new BatchResults<>();
+        List<ReadFunctionGroup<K>> halves = splitFunctionGroup(functionGroup);
+        boolean left = sendFunctionGroup(halves.get(0), halfResults, errorsInResults, exceptionsInResults, true,
+                deadline);
+        boolean right = sendFunctionGroup(halves.get(1), halfResults, errorsInResults, exceptionsInResults, true,
+                deadline);
+        if (left && right)
+            noteUnreadableGap(halves.get(0), halves.get(1));
+
+        List<KeyedModbusLocator<K>> locators = functionGroup.getLocators();
+        Object[] values = new Object[locators.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = halfResults.getValue(locators.get(i).getKey());
+        return values;
+    }
+
+    private static void setColumnarResult(ColumnarBatchResults results, int slot, boolean numeric, Object value) {
+        if (value instanceof ExceptionResult)
+            results.setError(slot, ColumnarBatchResults.STATUS_ERROR_RESPONSE, value);
+        else if (value instanceof ModbusTransportException)
+            results.setError(slot, ColumnarBatchResults.STATUS_TRANSPORT_ERROR, value);
+        else if (value instanceof NotAttemptedResult)
+            results.setError(slot, ColumnarBatchResults.STATUS_NOT_ATTEMPTED, value);
+        else if (numeric)
+            results.setNumber(slot, ((Number) value).longValue(), ((Number) value).doubleValue());
+        else
+            results.setValue(slot, value);
+    }
+
+    private <K> ModbusRequest createFunctionGroupRequest(ReadFunctionGroup<K> functionGroup)
+            throws ModbusTransportException {
+        // Inspect the function group for data required to create the request.
+        return createReadRequest(functionGroup.getSlaveAndRange().getSlaveId(), functionGroup.getFunctionCode(),
+                functionGroup.getStartOffset(), functionGroup.getLength());
+    }
+
+    private ModbusRequest createReadRequest(int slaveId, int functionCode, int startOffset, int length)
+            throws ModbusTransportException {
+        if (functionCode == FunctionCode.READ_COILS)
+            return new ReadCoilsRequest(slaveId, startOffset, length);
+        if (functionCode == FunctionCode.READ_DISCRETE_INPUTS)
+            return new ReadDiscreteInputsRequest(slaveId, startOffset, length);
+        if (functionCode == FunctionCode.READ_HOLDING_REGISTERS)
+            return new ReadHoldingRegistersRequest(slaveId, startOffset, length);
+        if (functionCode == FunctionCode.READ_INPUT_REGISTERS)
+            return new ReadInputRegistersRequest(slaveId, startOffset, length);
+        throw new RuntimeException("Unsupported function");
+    }
+
+    /**
+     * @return the master's max read count for the range, or the slave's if it is known to be lower.
+     */
+    private int getMaxReadCount(int slaveId, int range) {
+        int maxCount = getMaxReadCount(range);
+        int learnedMaxCount = getSlaveProfile(slaveId).getMaxReadCount(range);
+        if (learnedMaxCount > 0 && learnedMaxCount < maxCount)
+            maxCount = learnedMaxCount;
+        return maxCount;
+    }
+
+    private static void putRegisters(ModbusRequest request, int count, ModbusResponse response, ShortBuffer dest)
+            throws ModbusTransportException, ErrorResponseException {
+        if (response.isException())
+            throw new ErrorResponseException(request, response);
+        // A short response would leave the rest of the destination as it was, to be decoded as if it had been read.
+        ByteBuffer data = ((ReadResponse) response).getDataBuffer();
+        if (data.remaining() != count * 2)
+            throw new ModbusTransportException("Response has " + data.remaining() + " bytes of data, expected "
+                    + count * 2, request.getSlaveId());
+        dest.put(data.asShortBuffer());
+    }
+
+    private static ModbusResponse getResponse(CompletableFuture<ModbusResponse> future, int slaveId)
+            throws ModbusTransportException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusTransportException(e, slaveId);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ModbusTransportException)
+                throw (ModbusTransportException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new ModbusTransportException(cause, slaveId);
+        }
+    }
+
+    private Object getArrayValue(ArrayLocator locator) throws ModbusTransportException, ErrorResponseException {
+        // Read the registers in wire order, so that the array is decoded in one go however many requests it took.
+        byte[] data = new byte[locator.getRegisterCount() * 2];
+        readRegisters(locator.getSlaveId(), locator.getRange(), locator.getOffset(), locator.getRegisterCount(),
+                ByteBuffer.wrap(data).asShortBuffer());
+        return locator.bytesToValueRealOffset(data, 0);
+    }
+
+    /**
+     * Asynchronous counterpart of getArrayValue. The requests are sent together if the master is pipelined, and one
+     * after the other otherwise.
+     */
+    private CompletableFuture<Object> getArrayValueAsync(ArrayLocator locator) {
+        int slaveId = locator.getSlaveId();
+        int count = locator.getRegisterCount();
+        int maxCount = getMaxReadCount(slaveId, locator.getRange());
+        int functionCode = RegisterRange.getReadFunctionCode(locator.getRange());
+        int requestCount = (count + maxCount - 1) / maxCount;
+        ModbusRequest[] requests = new ModbusRequest[requestCount];
+        try {
+            for (int i = 0; i < requestCount; i++)
+                requests[i] = createReadRequest(slaveId, functionCode, locator.getOffset() + i * maxCount,
+                        Math.min(maxCount, count - i * maxCount));
+        }
+        catch (ModbusTransportException e) {
+            return failedFuture(e);
+        }
+
+        byte[] data = new byte[count * 2];
+        ShortBuffer dest = ByteBuffer.wrap(data).asShortBuffer();
+        CompletableFuture<Void> read;
+        if (requestCount > 1 && isPipelined()) {
+            List<CompletableFuture<ModbusResponse>> responses = new ArrayList<>(requestCount);
+            for (ModbusRequest request : requests)
+                responses.add(sendAsync(request));
+            read = CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[requestCount])).thenRun(() -> {
+                for (int i = 0; i < requestCount; i++)
+                    putRegistersAsync(requests[i], Math.min(maxCount, count - i * maxCount), responses.get(i).join(),
+                            dest);
+            });
+        }
+        else {
+            read = CompletableFuture.completedFuture(null);
+            for (int i = 0; i < requestCount; i++) {
+                ModbusRequest request = requests[i];
+                int length = Math.min(maxCount, count - i * maxCount);
+                read = read.thenCompose(v -> sendAsync(request)).thenAccept(response -> putRegistersAsync(request,
+                        length, response, dest));
+            }
+        }
+        return read.thenApply(v -> locator.bytesToValueRealOffset(data, 0));
+    }
+
+    /**
+     * putRegisters for use in a completion stage, which cannot throw checked exceptions.
+     */
+    private static void putRegistersAsync(ModbusRequest request, int count, ModbusResponse response,
+            ShortBuffer dest) {
+        try {
+            putRegisters(request, count, response, dest);
+        }
+        catch (ModbusTransportException | ErrorResponseException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private void writeArray(int slaveId, int startOffset, short[] data, int elementRegisterCount)
+            throws ModbusTransportException, ErrorResponseException {
+        // Split at element boundaries where possible, so that no element is written half by one request and half by
+        // the next.
+        int maxCount = getMaxWriteCount(RegisterRange.HOLDING_REGISTER);
+        if (maxCount >= elementRegisterCount)
+            maxCount -= maxCount % elementRegisterCount;
+        for (int done = 0; done < data.length; done += maxCount) {
+            int length = Math.min(maxCount, data.length - done);
+            setValue(new WriteRegistersRequest(slaveId, startOffset + done, Arrays.copyOfRange(data, done,
+                    done + length)));
+        }
+    }
+
+    private BitSet readBits(int slaveId, int range, int startOffset, int count) throws ModbusTransportException,
+            ErrorResponseException {
+        if (count < 1)
+            throw new ModbusTransportException("Invalid number of bits: " + count, slaveId);
+
+        // Requests are kept to whole bytes where possible, so that each response can be copied straight into place.
+        byte[] data = new byte[(count + 7) / 8];
+        int maxCount = getMaxReadCount(slaveId, range);
+        if (maxCount >= 8)
+            maxCount &= ~7;
+        for (int done = 0; done < count; done += maxCount) {
+            int length = Math.min(maxCount, count - done);
+            ModbusRequest request = createReadRequest(slaveId, RegisterRange.getReadFunctionCode(range),
+                    startOffset + done, length);
+            ReadResponse response = (ReadResponse) send(request);
+            if (response.isException())
+                throw new ErrorResponseException(request, response);
+
+            byte[] chunk = response.getData();
+            if (chunk.length < (length + 7) / 8)
+                throw new ModbusTransportException("Response has " + chunk.length + " bytes of data, expected "
+                        + (length + 7) / 8, slaveId);
+            if (maxCount % 8 == 0)
+                System.arraycopy(chunk, 0, data, done / 8, (length + 7) / 8);
+            else {
+                // A slave that reads fewer than 8 bits at a time. Copy bit by bit.
+                for (int i = 0; i < length; i++) {
+                    if ((chunk[i / 8] & 1 << i % 8) != 0)
+                        data[(done + i) / 8] |= 1 << (done + i) % 8;
+                }
+            }
+        }
+
+        // Clear the padding of the last byte.
+        if (count % 8 != 0)
+            data[data.length - 1] &= (1 << count % 8) - 1;
+        return BitSet.valueOf(data);
+    }
+
+    /**
+     * @return true if the read is accepted, false if it is refused in a way that can be due to its length, or null if
+     *         the slave did not respond or responded with another exception.
+     */
+    private Boolean isLengthAccepted(int slaveId, byte functionCode, int startOffset, int length) {
+        ModbusResponse response;
+        try {
+            response = send(createReadRequest(slaveId, functionCode, startOffset, length));
+        }
+        catch (ModbusTransportException e) {
+            return null;
+        }
+        if (!response.isException())
+            return true;
+        if (response.getExceptionCode() == ExceptionCode.ILLEGAL_DATA_VALUE
+                || response.getExceptionCode() == ExceptionCode.ILLEGAL_DATA_ADDRESS)
+            return false;
+        return null;
+    }
+
+    /**
+     * Reads the given addresses and, if they cannot be read, bisects them to find and note the ones that cannot. Reads
+     * that are refused with an illegal data value or get no response are bisected too, since the slave may not accept
+     * their length, but only an illegal data address on a single address marks it as unreadable.
+     */
+    private void findUnreadableRanges(int slaveId, int range, byte functionCode, int startOffset, int endOffset,
+            SlaveProfile profile) throws ModbusTransportException {
+        ModbusResponse response;
+        try {
+            response = send(createReadRequest(slaveId, functionCode, startOffset, endOffset - startOffset + 1));
+        }
+        catch (ModbusTransportException e) {
+            if (startOffset == endOffset)
+                throw e;
+            int middle = (startOffset + endOffset) >>> 1;
+            findUnreadableRanges(slaveId, range, functionCode, startOffset, middle, profile);
+            findUnreadableRanges(slaveId, range, functionCode, middle + 1, endOffset, profile);
+            return;
+        }
+        if (!response.isException())
+            return;
+        byte exceptionCode = response.getExceptionCode();
+        if (exceptionCode != ExceptionCode.ILLEGAL_DATA_ADDRESS && exceptionCode != ExceptionCode.ILLEGAL_DATA_VALUE)
+            return;
+
+        if (startOffset == endOffset) {
+            if (exceptionCode == ExceptionCode.ILLEGAL_DATA_ADDRESS)
+                profile.addUnreadableRange(range, startOffset, endOffset);
+        }
+        else {
+            int middle = (startOffset + endOffset) >>> 1;
+            findUnreadableRanges(slaveId, range, functionCode, startOffset, middle, profile);
+            findUnreadableRanges(slaveId, range, functionCode, middle + 1, endOffset, profile);
+        }
+    }
+
+    private <K> void processFunctionGroupResponse(ReadFunctionGroup<K> functionGroup, ModbusRequest request,
+            ReadResponse response, BatchResults<K> results, boolean errorsInResults) throws ErrorResponseException {
+        int startOffset = functionGroup.getStartOffset();
+        int length = functionGroup.getLength();
+
+        if (response.isException() && response.getExceptionCode() == ExceptionCode.ILLEGAL_FUNCTION)
+            getSlaveProfile(request.getSlaveId()).setFunctionSupported(request.getFunctionCode(), false);
+
         byte[] data = null;
         if (!errorsInResults && response.isException())
             throw new ErrorResponseException(request, response);
@@ -538,6 +1888,19 @@ abstract public class ModbusMaster extends Modbus {
         }
     }
 
+    /**
+     * <p>failedFuture.</p>
+     *
+     * @param e the exception to complete the future with.
+     * @return a future that has already completed exceptionally.
+     * @param <T> type of the future
+     */
+    protected static <T> CompletableFuture<T> failedFuture(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
     private void setValue(ModbusRequest request) throws ModbusTransportException, ErrorResponseException {
         ModbusResponse response = send(request);
         if (response == null)
@@ -547,6 +1910,83 @@ abstract public class ModbusMaster extends Modbus {
             throw new ErrorResponseException(request, response);
     }
 
+    private <K> void sendWriteFunctionGroup(WriteFunctionGroup<K> functionGroup, BatchResults<K> results) {
+        Object outcome;
+        try {
+            ModbusResponse response = send(createWriteRequest(functionGroup));
+            if (response != null && response.isException())
+                outcome = new ExceptionResult(response.getExceptionCode());
+            else
+                outcome = Boolean.TRUE;
+        }
+        catch (ModbusTransportException e) {
+            outcome = e;
+        }
+        addWriteOutcome(functionGroup, results, outcome);
+    }
+
+    /**
+     * Sends a write and a read of holding registers as a single read/write multiple registers request.
+     *
+     * @return false if the slave does not support the function, in which case nothing was written or read.
+     */
+    private <K> boolean sendReadWriteFunctionGroups(WriteFunctionGroup<K> writeGroup, ReadFunctionGroup<K> readGroup,
+            BatchResults<K> results, boolean errorsInResults, boolean exceptionsInResults)
+            throws ModbusTransportException, ErrorResponseException {
+        ModbusRequest request = new ReadWriteMultipleRegistersRequest(writeGroup.getSlaveAndRange().getSlaveId(),
+                readGroup.getStartOffset(), readGroup.getLength(), writeGroup.getStartOffset(),
+                writeGroup.getRegisters());
+
+        ReadResponse response;
+        try {
+            response = (ReadResponse) send(request);
+        }
+        catch (ModbusTransportException e) {
+            addWriteOutcome(writeGroup, results, e);
+            if (!exceptionsInResults)
+                throw e;
+            for (KeyedModbusLocator<K> locator : readGroup.getLocators())
+                results.addResult(locator.getKey(), e);
+            return true;
+        }
+
+        if (response.isException() && response.getExceptionCode() == ExceptionCode.ILLEGAL_FUNCTION) {
+            getSlaveProfile(request.getSlaveId()).setFunctionSupported(request.getFunctionCode(), false);
+            return false;
+        }
+
+        addWriteOutcome(writeGroup, results, response.isException() ? new ExceptionResult(response
+                .getExceptionCode()) : Boolean.TRUE);
+        processFunctionGroupResponse(readGroup, request, response, results, errorsInResults);
+        return true;
+    }
+
+    private static <K> void addWriteOutcome(WriteFunctionGroup<K> functionGroup, BatchResults<K> results,
+            Object outcome) {
+        // A failure of any of a key's requests is its outcome.
+        for (K key : functionGroup.getKeys()) {
+            if (outcome != Boolean.TRUE || results.getValue(key) == null)
+                results.addResult(key, outcome);
+        }
+    }
+
+    private ModbusRequest createWriteRequest(WriteFunctionGroup<?> functionGroup) throws ModbusTransportException {
+        int slaveId = functionGroup.getSlaveAndRange().getSlaveId();
+        int startOffset = functionGroup.getStartOffset();
+
+        if (functionGroup.isCoils()) {
+            boolean[] coils = functionGroup.getCoils();
+            if (coils.length == 1 && !multipleWritesOnly)
+                return new WriteCoilRequest(slaveId, startOffset, coils[0]);
+            return new WriteCoilsRequest(slaveId, startOffset, coils);
+        }
+
+        short[] registers = functionGroup.getRegisters();
+        if (registers.length == 1 && !multipleWritesOnly)
+            return new WriteRegisterRequest(slaveId, startOffset, registers[0] & 0xFFFF);
+        return new WriteRegistersRequest(slaveId, startOffset, registers);
+    }
+
     private void setHoldingRegisterBit(int slaveId, int writeOffset, int bit, boolean value)
             throws ModbusTransportException, ErrorResponseException {
         // Writing a bit in a holding register field. There are two ways to do this. The easy way is to
@@ -588,14 +2028,20 @@ abstract public class ModbusMaster extends Modbus {
         setValue(new WriteRegisterRequest(slaveId, writeOffset, regValue));
     }
 
-    private SlaveProfile getSlaveProfile(int slaveId) {
-        SlaveProfile sp = slaveProfiles.get(slaveId);
-        if (sp == null) {
-            sp = new SlaveProfile();
-            slaveProfiles.put(slaveId, sp);
-        }
-        return sp;
-    }
-
+    /**
+     * Lazily created defaults shared by all masters that have not been given their own executors.
+     */
+    private static class SharedExecutors {
+        static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Modbus4J master scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
 
+        static final ExecutorService ASYNC_EXECUTOR = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "Modbus4J async send");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
@@ -0,0 +1,60 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j;
+
+/**
+ * <p>NotAttemptedResult class.</p>
+ *
+ * The result of a locator in a batch read with a time budget whose request was never sent, either because the budget
+ * ran out or because an earlier request to the same slave failed to get through.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+public class NotAttemptedResult {
+    /** The time budget of the batch was used up before the request could be sent. */
+    public static final NotAttemptedResult TIME_BUDGET_EXHAUSTED = new NotAttemptedResult(
+            "Time budget exhausted");
+    /** An earlier request to the slave in the same batch failed with a transport exception. */
+    public static final NotAttemptedResult SLAVE_UNREACHABLE = new NotAttemptedResult(
+            "Slave unreachable earlier in the batch");
+
+    private final String reason;
+
+    private NotAttemptedResult(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * <p>Getter for the field <code>reason</code>.</p>
+     *
+     * @return a {@link java.lang.String} object.
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Not attempted: " + reason;
+    }
+}
@@ -120,6 +120,29 @@ public interface ProcessImage {
      */
     void writeHoldingRegister(int offset, short value) throws IllegalDataAddressException;
 
+    /**
+     * Used to write and then read holding registers as a result of a read/write multiple registers command from the
+     * master. The default implementation writes each register and then reads each register. Implementations can
+     * override it to do both as one atomic operation.
+     *
+     * @param readOffset a int.
+     * @param readCount a int.
+     * @param writeOffset a int.
+     * @param values the values to write.
+     * @return the values of the registers read.
+     * @throws com.serotonin.modbus4j.exception.IllegalDataAddressException if any.
+     */
+    default short[] readWriteHoldingRegisters(int readOffset, int readCount, int writeOffset, short[] values)
+            throws IllegalDataAddressException {
+        for (int i = 0; i < values.length; i++)
+            writeHoldingRegister(writeOffset + i, values[i]);
+
+        short[] result = new short[readCount];
+        for (int i = 0; i < readCount; i++)
+            result[i] = getHoldingRegister(readOffset + i);
+        return result;
+    }
+
     //
     // /
     // / Input registers
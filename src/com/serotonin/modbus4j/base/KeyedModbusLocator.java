@@ -33,6 +33,7 @@ import com.serotonin.modbus4j.locator.BaseLocator;
 public class KeyedModbusLocator<K> {
     private final K key;
     private final BaseLocator<?> locator;
+    private final int priority;
 
     /**
      * <p>Constructor for KeyedModbusLocator.</p>
@@ -41,8 +42,20 @@ public class KeyedModbusLocator<K> {
      * @param locator a {@link com.serotonin.modbus4j.locator.BaseLocator} object.
      */
     public KeyedModbusLocator(K key, BaseLocator<?> locator) {
+        this(key, locator, 0);
+    }
+
+    /**
+     * <p>Constructor for KeyedModbusLocator.</p>
+     *
+     * @param key a K object.
+     * @param locator a {@link com.serotonin.modbus4j.locator.BaseLocator} object.
+     * @param priority a int.
+     */
+    public KeyedModbusLocator(K key, BaseLocator<?> locator, int priority) {
         this.key = key;
         this.locator = locator;
+        this.priority = priority;
     }
 
     /**
@@ -63,6 +76,15 @@ public class KeyedModbusLocator<K> {
         return locator;
     }
 
+    /**
+     * <p>Getter for the field <code>priority</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getPriority() {
+        return priority;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
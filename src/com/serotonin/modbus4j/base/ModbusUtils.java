@@ -205,17 +205,48 @@ public class ModbusUtils {
      * @return a int.
      */
     public static int calculateCRC(ModbusMessage modbusMessage) {
-        ByteQueue queue = new ByteQueue();
+        ByteQueue queue = new ByteQueue(64);
         modbusMessage.write(queue);
+        return calculateCRC(queue, 0, queue.size());
+    }
 
+    /**
+     * Calculates the CRC of a range of bytes in the queue without consuming them.
+     *
+     * @param queue a {@link com.serotonin.modbus4j.sero.util.queue.ByteQueue} object.
+     * @param start the index of the first byte, counted from the head of the queue.
+     * @param length the number of bytes.
+     * @return a int.
+     */
+    public static int calculateCRC(ByteQueue queue, int start, int length) {
+        int high = 0xff;
+        int low = 0xff;
+        int uIndex;
+
+        for (int i = start; i < start + length; i++) {
+            uIndex = high ^ (0xFF & queue.peek(i));
+            high = low ^ lookupCRCHi[uIndex];
+            low = lookupCRCLo[uIndex];
+        }
+
+        return (high << 8) | low;
+    }
+
+    /**
+     * Calculates the CRC of a range of bytes in the array.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param pos the index of the first byte.
+     * @param length the number of bytes.
+     * @return a int.
+     */
+    public static int calculateCRC(byte[] data, int pos, int length) {
         int high = 0xff;
         int low = 0xff;
-        int nextByte = 0;
         int uIndex;
 
-        while (queue.size() > 0) {
-            nextByte = 0xFF & queue.pop();
-            uIndex = high ^ nextByte;
+        for (int i = pos; i < pos + length; i++) {
+            uIndex = high ^ (0xFF & data[i]);
             high = low ^ lookupCRCHi[uIndex];
             low = lookupCRCLo[uIndex];
         }
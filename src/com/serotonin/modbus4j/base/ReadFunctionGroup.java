@@ -115,4 +115,16 @@ public class ReadFunctionGroup<K> {
     public List<KeyedModbusLocator<K>> getLocators() {
         return locators;
     }
+
+    /**
+     * <p>getPriority.</p>
+     *
+     * @return the highest priority of the group's locators.
+     */
+    public int getPriority() {
+        int priority = Integer.MIN_VALUE;
+        for (KeyedModbusLocator<K> locator : locators)
+            priority = Math.max(priority, locator.getPriority());
+        return priority;
+    }
 }
@@ -20,15 +20,47 @@
  */
 package com.serotonin.modbus4j.base;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.serotonin.modbus4j.code.FunctionCode;
+import com.serotonin.modbus4j.code.RegisterRange;
+
 /**
  * Class for maintaining the profile of a slave device on the master side. Initially, we assume that the device is fully
  * featured, and then we note function failures so that we know how requests should subsequently be sent.
  *
+ * The profile also holds the cost model that batch reads use to decide how to group locators into requests (see
+ * {@link com.serotonin.modbus4j.BatchRead#setCostBasedRequests(boolean)}), and the address ranges that the device is
+ * known not to allow reading.
+ *
+ * Besides what is noted as requests fail, the master can probe a slave for its limits (see
+ * {@link com.serotonin.modbus4j.ModbusMaster#discoverSlaveProfile(int, int, int, int)}): the largest read it accepts,
+ * its unreadable address ranges, and whether it supports the read function at all. Batch reads plan their requests
+ * with what the profile has learned.
+ *
  * @author mlohbihler
  * @version 5.0.0
  */
 public class SlaveProfile {
-    private boolean writeMaskRegister = true;
+    /** Constant <code>DEFAULT_REQUEST_COST=20</code> */
+    public static final double DEFAULT_REQUEST_COST = 20;
+    /** Constant <code>DEFAULT_REGISTER_COST=1</code> */
+    public static final double DEFAULT_REGISTER_COST = 1;
+
+    private final Set<Byte> unsupportedFunctions = new HashSet<>();
+    private final Map<Integer, Integer> maxReadCounts = new HashMap<>();
+    private double requestCost = DEFAULT_REQUEST_COST;
+    private double registerCost = DEFAULT_REGISTER_COST;
+
+    // Incremented whenever something that affects the planning of batch reads changes.
+    private volatile int revision;
+
+    // Unreadable address ranges by register range, each a map of start offset to end offset (inclusive).
+    private final Map<Integer, TreeMap<Integer, Integer>> unreadableRanges = new HashMap<>();
 
     /**
      * <p>Setter for the field <code>writeMaskRegister</code>.</p>
@@ -36,7 +68,7 @@ public class SlaveProfile {
      * @param writeMaskRegister a boolean.
      */
     public void setWriteMaskRegister(boolean writeMaskRegister) {
-        this.writeMaskRegister = writeMaskRegister;
+        setFunctionSupported(FunctionCode.WRITE_MASK_REGISTER, writeMaskRegister);
     }
 
     /**
@@ -45,6 +77,177 @@ public class SlaveProfile {
      * @return a boolean.
      */
     public boolean getWriteMaskRegister() {
-        return writeMaskRegister;
+        return isFunctionSupported(FunctionCode.WRITE_MASK_REGISTER);
+    }
+
+    /**
+     * <p>isFunctionSupported.</p>
+     *
+     * @param functionCode a byte.
+     * @return false if the slave is known to not support the function.
+     */
+    public synchronized boolean isFunctionSupported(byte functionCode) {
+        return !unsupportedFunctions.contains(functionCode);
+    }
+
+    /**
+     * Notes whether the slave supports the given function, typically after it has responded with an illegal function
+     * exception.
+     *
+     * @param functionCode a byte.
+     * @param supported a boolean.
+     */
+    public synchronized void setFunctionSupported(byte functionCode, boolean supported) {
+        if (supported)
+            unsupportedFunctions.remove(functionCode);
+        else
+            unsupportedFunctions.add(functionCode);
+    }
+
+    /**
+     * <p>getMaxReadCount.</p>
+     *
+     * @param range a int.
+     * @return the largest number of registers or bits that the slave is known to accept in a single read of the given
+     *         range, or 0 if this is not known, in which case the master's limit applies.
+     */
+    public synchronized int getMaxReadCount(int range) {
+        Integer count = maxReadCounts.get(range);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Sets the largest number of registers or bits that the slave accepts in a single read of the given range. Batch
+     * reads will use the lesser of this and the master's limit. A count of 0 clears the limit.
+     *
+     * @param range a int.
+     * @param maxReadCount a int.
+     */
+    public synchronized void setMaxReadCount(int range, int maxReadCount) {
+        if (maxReadCount <= 0)
+            maxReadCounts.remove(range);
+        else
+            maxReadCounts.put(range, maxReadCount);
+        revision++;
+    }
+
+    /**
+     * <p>Getter for the field <code>requestCost</code>.</p>
+     *
+     * @return a double.
+     */
+    public synchronized double getRequestCost() {
+        return requestCost;
+    }
+
+    /**
+     * Sets the fixed cost of a request to this slave, regardless of its length, i.e. the round trip time in
+     * milliseconds including frame overhead and the device's turnaround.
+     *
+     * @param requestCost a double.
+     */
+    public synchronized void setRequestCost(double requestCost) {
+        this.requestCost = requestCost;
+        revision++;
+    }
+
+    /**
+     * <p>Getter for the field <code>registerCost</code>.</p>
+     *
+     * @return a double.
+     */
+    public synchronized double getRegisterCost() {
+        return registerCost;
+    }
+
+    /**
+     * Sets the cost in milliseconds of each additional register that a request reads from this slave. On a 9600 baud
+     * serial line, for example, this is about 2.3. Coils and discrete inputs are charged a sixteenth of this per bit.
+     *
+     * @param registerCost a double.
+     */
+    public synchronized void setRegisterCost(double registerCost) {
+        this.registerCost = registerCost;
+        revision++;
+    }
+
+    /**
+     * <p>getReadCost.</p>
+     *
+     * @param range a int.
+     * @param length the number of registers or bits read.
+     * @return the estimated time in milliseconds of a request that reads the given length.
+     */
+    public synchronized double getReadCost(int range, int length) {
+        if (range == RegisterRange.COIL_STATUS || range == RegisterRange.INPUT_STATUS)
+            return requestCost + registerCost * length / 16;
+        return requestCost + registerCost * length;
+    }
+
+    /**
+     * Notes that the given addresses cannot be read from the slave, so that batch reads will not include them in a
+     * request, even as part of a gap between locators.
+     *
+     * @param range a int.
+     * @param startOffset a int.
+     * @param endOffset a int, inclusive.
+     */
+    public synchronized void addUnreadableRange(int range, int startOffset, int endOffset) {
+        TreeMap<Integer, Integer> ranges = unreadableRanges.get(range);
+        if (ranges == null) {
+            ranges = new TreeMap<>();
+            unreadableRanges.put(range, ranges);
+        }
+
+        // Merge with any ranges that overlap or abut the new one.
+        Map.Entry<Integer, Integer> e = ranges.floorEntry(startOffset);
+        if (e != null && e.getValue() >= endOffset)
+            // Already known.
+            return;
+        if (e != null && e.getValue() >= startOffset - 1) {
+            startOffset = e.getKey();
+            endOffset = Math.max(endOffset, e.getValue());
+        }
+        while ((e = ranges.ceilingEntry(startOffset)) != null && e.getKey() <= endOffset + 1) {
+            endOffset = Math.max(endOffset, e.getValue());
+            ranges.remove(e.getKey());
+        }
+        ranges.put(startOffset, endOffset);
+        revision++;
+    }
+
+    /**
+     * <p>isUnreadable.</p>
+     *
+     * @param range a int.
+     * @param startOffset a int.
+     * @param endOffset a int, inclusive.
+     * @return true if any of the addresses are known to be unreadable.
+     */
+    public synchronized boolean isUnreadable(int range, int startOffset, int endOffset) {
+        TreeMap<Integer, Integer> ranges = unreadableRanges.get(range);
+        if (ranges == null)
+            return false;
+        Map.Entry<Integer, Integer> e = ranges.floorEntry(endOffset);
+        return e != null && e.getValue() >= startOffset;
+    }
+
+    /**
+     * <p>clearUnreadableRanges.</p>
+     */
+    public synchronized void clearUnreadableRanges() {
+        unreadableRanges.clear();
+        revision++;
+    }
+
+    /**
+     * Returns a number that changes whenever the profile changes in a way that affects how batch reads are planned,
+     * i.e. its costs, max read counts or unreadable ranges. Batch reads use it to know when to plan their requests
+     * again.
+     *
+     * @return a int.
+     */
+    public int getRevision() {
+        return revision;
     }
 }
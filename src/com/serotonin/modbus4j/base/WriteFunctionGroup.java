@@ -0,0 +1,146 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j.base;
+
+import java.util.List;
+
+import com.serotonin.modbus4j.code.RegisterRange;
+
+/**
+ * <p>WriteFunctionGroup class.</p>
+ *
+ * A single write request of a {@link com.serotonin.modbus4j.BatchWrite}: a contiguous run of coils or holding
+ * registers of one slave, and the keys of the locators whose values it writes.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+public class WriteFunctionGroup<K> {
+    private final SlaveAndRange slaveAndRange;
+    private final int startOffset;
+    private final boolean[] coils;
+    private final short[] registers;
+    private final List<K> keys;
+
+    /**
+     * <p>Constructor for a group of coil writes.</p>
+     *
+     * @param slaveAndRange a {@link com.serotonin.modbus4j.base.SlaveAndRange} object.
+     * @param startOffset a int.
+     * @param coils an array of {@link boolean} objects.
+     * @param keys a {@link java.util.List} object.
+     */
+    public WriteFunctionGroup(SlaveAndRange slaveAndRange, int startOffset, boolean[] coils, List<K> keys) {
+        this.slaveAndRange = slaveAndRange;
+        this.startOffset = startOffset;
+        this.coils = coils;
+        registers = null;
+        this.keys = keys;
+    }
+
+    /**
+     * <p>Constructor for a group of holding register writes.</p>
+     *
+     * @param slaveAndRange a {@link com.serotonin.modbus4j.base.SlaveAndRange} object.
+     * @param startOffset a int.
+     * @param registers an array of {@link short} objects.
+     * @param keys a {@link java.util.List} object.
+     */
+    public WriteFunctionGroup(SlaveAndRange slaveAndRange, int startOffset, short[] registers, List<K> keys) {
+        this.slaveAndRange = slaveAndRange;
+        this.startOffset = startOffset;
+        coils = null;
+        this.registers = registers;
+        this.keys = keys;
+    }
+
+    /**
+     * <p>Getter for the field <code>slaveAndRange</code>.</p>
+     *
+     * @return a {@link com.serotonin.modbus4j.base.SlaveAndRange} object.
+     */
+    public SlaveAndRange getSlaveAndRange() {
+        return slaveAndRange;
+    }
+
+    /**
+     * <p>Getter for the field <code>startOffset</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getStartOffset() {
+        return startOffset;
+    }
+
+    /**
+     * <p>getEndOffset.</p>
+     *
+     * @return a int.
+     */
+    public int getEndOffset() {
+        return startOffset + getLength() - 1;
+    }
+
+    /**
+     * <p>getLength.</p>
+     *
+     * @return the number of coils or registers written.
+     */
+    public int getLength() {
+        return coils == null ? registers.length : coils.length;
+    }
+
+    /**
+     * <p>isCoils.</p>
+     *
+     * @return true if the group writes coils, false if it writes holding registers.
+     */
+    public boolean isCoils() {
+        return slaveAndRange.getRange() == RegisterRange.COIL_STATUS;
+    }
+
+    /**
+     * <p>Getter for the field <code>coils</code>.</p>
+     *
+     * @return the values to write, or null if the group writes holding registers.
+     */
+    public boolean[] getCoils() {
+        return coils;
+    }
+
+    /**
+     * <p>Getter for the field <code>registers</code>.</p>
+     *
+     * @return the values to write, or null if the group writes coils.
+     */
+    public short[] getRegisters() {
+        return registers;
+    }
+
+    /**
+     * <p>Getter for the field <code>keys</code>.</p>
+     *
+     * @return a {@link java.util.List} object.
+     */
+    public List<K> getKeys() {
+        return keys;
+    }
+}
@@ -49,6 +49,8 @@ public class FunctionCode {
     public static final byte REPORT_SLAVE_ID = 17;
     /** Constant <code>WRITE_MASK_REGISTER=22</code> */
     public static final byte WRITE_MASK_REGISTER = 22;
+    /** Constant <code>READ_WRITE_MULTIPLE_REGISTERS=23</code> */
+    public static final byte READ_WRITE_MULTIPLE_REGISTERS = 23;
 
     /**
      * <p>toString.</p>
@@ -27,7 +27,6 @@ import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
@@ -72,7 +71,7 @@ public class TcpListener extends ModbusMaster {
     // Runtime fields.
     private ServerSocket serverSocket;
     private Socket socket;
-    private ExecutorService executorService;
+    private volatile ExecutorService executorService;
     private ListenerConnectionHandler handler;
 
     /**
@@ -126,7 +125,7 @@ public class TcpListener extends ModbusMaster {
     @Override
     synchronized public void init() throws ModbusInitException {
         LOG.debug("Init TcpListener Port: " + ipParameters.getPort());
-        executorService = Executors.newCachedThreadPool();
+        executorService = createExecutorService();
         startListener();
         initialized = true;
         LOG.warn("Initialized Port: " + ipParameters.getPort());
@@ -266,7 +265,7 @@ public class TcpListener extends ModbusMaster {
                     return null;
                 }
 
-                executorService = Executors.newCachedThreadPool();
+                executorService = createExecutorService();
                 try {
                     startListener();
                 } catch (Exception e2) {
@@ -335,7 +334,11 @@ public class TcpListener extends ModbusMaster {
                             transport = new EpollStreamTransport(socket.getInputStream(), socket.getOutputStream(),
                                     getePoll());
                         } else {
-                            transport = new StreamTransport(socket.getInputStream(), socket.getOutputStream());
+                            StreamTransport streamTransport = new StreamTransport(socket.getInputStream(),
+                                    socket.getOutputStream());
+                            streamTransport.setBlockingRead(isBlockingRead());
+                            streamTransport.setThreadFactory(getThreadFactory());
+                            transport = streamTransport;
                         }
                         break;
                     } catch (Exception e) {
@@ -0,0 +1,409 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j.ip.tcp;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.serotonin.modbus4j.ModbusSlaveSet;
+import com.serotonin.modbus4j.base.BaseMessageParser;
+import com.serotonin.modbus4j.base.BaseRequestHandler;
+import com.serotonin.modbus4j.base.ModbusUtils;
+import com.serotonin.modbus4j.exception.ModbusInitException;
+import com.serotonin.modbus4j.ip.encap.EncapMessageParser;
+import com.serotonin.modbus4j.ip.encap.EncapRequestHandler;
+import com.serotonin.modbus4j.ip.xa.XaMessageParser;
+import com.serotonin.modbus4j.ip.xa.XaRequestHandler;
+import com.serotonin.modbus4j.sero.messaging.DataConsumer;
+import com.serotonin.modbus4j.sero.messaging.MessageControl;
+import com.serotonin.modbus4j.sero.messaging.Transport;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * NioTcpSlave class.</p>
+ *
+ * A TCP slave that serves all of its client connections from a small, fixed number of event loop threads, each of which
+ * multiplexes its connections with a {@link java.nio.channels.Selector}. Unlike {@link TcpSlave}, which needs two
+ * threads per client, the thread count does not grow with the number of connections, and closed connections are
+ * detected by the selector rather than by a polling liveness check.
+ *
+ * As with the other slaves, start() uses the calling thread to accept connections and does not return until the slave
+ * is stopped.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.1
+ */
+@Slf4j
+public class NioTcpSlave extends ModbusSlaveSet {
+
+    private static final int READ_BUFFER_SIZE = 1024;
+    private static final int ACCEPT_RETRY_DELAY = 100;
+
+    // Configuration fields
+    protected final int port;
+    protected final boolean encapsulated;
+    private final int eventLoopCount;
+
+    // Runtime fields.
+    private ServerSocketChannel serverChannel;
+    private EventLoop[] eventLoops;
+    private volatile boolean running;
+
+    /**
+     * <p>
+     * Constructor for NioTcpSlave.</p>
+     *
+     * Defaults to one event loop per available processor.
+     *
+     * @param encapsulated a boolean.
+     */
+    public NioTcpSlave(boolean encapsulated) {
+        this(ModbusUtils.TCP_PORT, encapsulated, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * <p>
+     * Constructor for NioTcpSlave.</p>
+     *
+     * @param port a int.
+     * @param encapsulated a boolean.
+     * @param eventLoopCount the number of threads that serve the client connections.
+     */
+    public NioTcpSlave(int port, boolean encapsulated, int eventLoopCount) {
+        this.port = port;
+        this.encapsulated = encapsulated;
+        this.eventLoopCount = eventLoopCount < 1 ? 1 : eventLoopCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void start() throws ModbusInitException {
+        try {
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+
+            running = true;
+            eventLoops = new EventLoop[eventLoopCount];
+            for (int i = 0; i < eventLoops.length; i++) {
+                eventLoops[i] = new EventLoop("Modbus4J NioTcpSlave event loop " + i);
+                eventLoops[i].start();
+            }
+
+            // Accept on the calling thread, handing each connection to the next event loop in turn.
+            int next = 0;
+            while (running) {
+                SocketChannel channel;
+                try {
+                    channel = serverChannel.accept();
+                } catch (ClosedChannelException e) {
+                    throw e;
+                } catch (IOException e) {
+                    // Failing to accept one connection, e.g. when out of file descriptors, must not stop the slave
+                    // serving the clients it already has. Pause so that a persistent failure does not spin.
+                    getExceptionHandler().receivedException(e);
+                    if (!pauseAccepting())
+                        break;
+                    continue;
+                }
+                eventLoops[next].register(channel);
+                next = (next + 1) % eventLoops.length;
+            }
+        } catch (IOException e) {
+            if (running)
+                throw new ModbusInitException(e);
+        }
+    }
+
+    private boolean pauseAccepting() {
+        try {
+            Thread.sleep(ACCEPT_RETRY_DELAY);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void stop() {
+        running = false;
+
+        // Close the server channel first to prevent new connections.
+        try {
+            if (serverChannel != null)
+                serverChannel.close();
+        } catch (IOException e) {
+            getExceptionHandler().receivedException(e);
+        }
+
+        // Stop the event loops, which close their connections as they exit.
+        if (eventLoops != null) {
+            for (EventLoop loop : eventLoops) {
+                if (loop != null)
+                    loop.shutdown();
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * createMessageParser.</p>
+     *
+     * @return the parser for a new connection.
+     */
+    protected BaseMessageParser createMessageParser() {
+        if (encapsulated)
+            return new EncapMessageParser(false);
+        return new XaMessageParser(false);
+    }
+
+    /**
+     * <p>
+     * createRequestHandler.</p>
+     *
+     * @return the request handler for a new connection.
+     */
+    protected BaseRequestHandler createRequestHandler() {
+        if (encapsulated)
+            return new EncapRequestHandler(this);
+        return new XaRequestHandler(this);
+    }
+
+    /**
+     * A single selector thread that reads requests from, and writes responses to, its share of the connections.
+     */
+    class EventLoop implements Runnable {
+        private final Thread thread;
+        private final Selector selector;
+        private final Queue<SocketChannel> pendingRegistrations = new ConcurrentLinkedQueue<>();
+        private final byte[] readBytes = new byte[READ_BUFFER_SIZE];
+        private final ByteBuffer readBuffer = ByteBuffer.wrap(readBytes);
+
+        EventLoop(String name) throws IOException {
+            selector = Selector.open();
+            thread = createThread(this, name);
+            thread.setDaemon(true);
+        }
+
+        void start() {
+            thread.start();
+        }
+
+        void register(SocketChannel channel) {
+            pendingRegistrations.add(channel);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            selector.wakeup();
+            try {
+                thread.join(3000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                getExceptionHandler().receivedException(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    selector.select();
+                    registerPending();
+
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+
+                        NioConnection connection = (NioConnection) key.attachment();
+                        if (!key.isValid()) {
+                            connection.close();
+                            continue;
+                        }
+
+                        try {
+                            if (key.isReadable())
+                                connection.read();
+                            if (key.isValid() && key.isWritable())
+                                connection.flush();
+                        } catch (IOException e) {
+                            connection.close();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                getExceptionHandler().receivedException(e);
+            } finally {
+                for (SelectionKey key : selector.keys()) {
+                    if (key.attachment() != null)
+                        ((NioConnection) key.attachment()).close();
+                }
+                for (SocketChannel channel : pendingRegistrations)
+                    closeQuietly(channel);
+                try {
+                    selector.close();
+                } catch (IOException e) {
+                    getExceptionHandler().receivedException(e);
+                }
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pendingRegistrations.poll()) != null) {
+                try {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    NioConnection connection = new NioConnection(channel, key, this);
+                    key.attach(connection);
+                    connection.start();
+                } catch (IOException e) {
+                    closeQuietly(channel);
+                    getExceptionHandler().receivedException(new ModbusInitException(e));
+                }
+            }
+        }
+    }
+
+    /**
+     * The transport of a single client connection. Reads are delivered by the event loop; writes are attempted
+     * immediately and, if the socket buffer is full, the remainder is written when the selector reports the channel as
+     * writable.
+     */
+    class NioConnection implements Transport {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private final EventLoop loop;
+        private final MessageControl conn = new MessageControl();
+        private final Queue<ByteBuffer> pendingWrites = new ArrayDeque<>();
+        private DataConsumer consumer;
+        private boolean closed;
+
+        NioConnection(SocketChannel channel, SelectionKey key, EventLoop loop) {
+            this.channel = channel;
+            this.key = key;
+            this.loop = loop;
+        }
+
+        void start() throws IOException {
+            conn.setExceptionHandler(getExceptionHandler());
+            conn.start(this, createMessageParser(), createRequestHandler(), null);
+        }
+
+        void read() throws IOException {
+            ByteBuffer buffer = loop.readBuffer;
+            buffer.clear();
+            int count = channel.read(buffer);
+            if (count < 0) {
+                close();
+                return;
+            }
+            if (count > 0 && consumer != null)
+                consumer.data(loop.readBytes, count);
+        }
+
+        synchronized void flush() throws IOException {
+            while (!pendingWrites.isEmpty()) {
+                ByteBuffer buffer = pendingWrites.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining())
+                    return;
+                pendingWrites.poll();
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        }
+
+        void close() {
+            synchronized (this) {
+                if (closed)
+                    return;
+                closed = true;
+                pendingWrites.clear();
+            }
+            key.cancel();
+            conn.close();
+            closeQuietly(channel);
+        }
+
+        @Override
+        public void setConsumer(DataConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void removeConsumer() {
+            consumer = null;
+        }
+
+        @Override
+        public void write(byte[] data) throws IOException {
+            write(data, data.length);
+        }
+
+        @Override
+        public synchronized void write(byte[] data, int len) throws IOException {
+            if (closed)
+                throw new ClosedChannelException();
+
+            ByteBuffer buffer = ByteBuffer.wrap(data, 0, len);
+            if (pendingWrites.isEmpty()) {
+                channel.write(buffer);
+                if (!buffer.hasRemaining())
+                    return;
+            }
+
+            // The socket buffer is full. Queue a copy of the remainder until the channel becomes writable again; the
+            // caller may reuse the array as soon as this method returns.
+            ByteBuffer remainder = ByteBuffer.allocate(buffer.remaining());
+            remainder.put(buffer);
+            remainder.flip();
+            pendingWrites.add(remainder);
+            key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            loop.selector.wakeup();
+        }
+    }
+
+    private void closeQuietly(SocketChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("Exception closing channel", e);
+        }
+    }
+}
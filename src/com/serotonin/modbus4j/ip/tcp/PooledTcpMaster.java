@@ -0,0 +1,267 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j.ip.tcp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.serotonin.modbus4j.ModbusMaster;
+import com.serotonin.modbus4j.exception.ModbusInitException;
+import com.serotonin.modbus4j.exception.ModbusTransportException;
+import com.serotonin.modbus4j.ip.IpParameters;
+import com.serotonin.modbus4j.msg.ModbusRequest;
+import com.serotonin.modbus4j.msg.ModbusResponse;
+import com.serotonin.modbus4j.sero.messaging.TimeoutException;
+
+/**
+ * <p>PooledTcpMaster class.</p>
+ *
+ * A master that spreads its requests over a bounded pool of keep-alive TCP connections to the same endpoint. Each
+ * request is routed to an idle connection, so up to poolSize requests can be in progress at once for devices and
+ * gateways that accept several concurrent Modbus TCP connections.
+ *
+ * Connections are opened lazily, checked before they are handed out, and evicted and replaced when a request on them
+ * fails with a transport exception.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+public class PooledTcpMaster extends ModbusMaster {
+
+    private final Log LOG = LogFactory.getLog(PooledTcpMaster.class);
+
+    // Configuration fields.
+    private final IpParameters ipParameters;
+    private final int poolSize;
+
+    // Runtime fields.
+    private final BlockingDeque<TcpMaster> idleConnections = new LinkedBlockingDeque<>();
+    private final List<TcpMaster> allConnections = new ArrayList<>();
+
+    /**
+     * <p>Constructor for PooledTcpMaster.</p>
+     *
+     * Default to not validating the slave id in responses
+     *
+     * @param params a {@link com.serotonin.modbus4j.ip.IpParameters} object.
+     * @param poolSize the maximum number of connections to open to the endpoint.
+     */
+    public PooledTcpMaster(IpParameters params, int poolSize) {
+        this(params, poolSize, false);
+    }
+
+    /**
+     * <p>Constructor for PooledTcpMaster.</p>
+     *
+     * @param params a {@link com.serotonin.modbus4j.ip.IpParameters} object.
+     * @param poolSize the maximum number of connections to open to the endpoint.
+     * @param validateResponse - confirm that requested slave id is the same in the response
+     */
+    public PooledTcpMaster(IpParameters params, int poolSize, boolean validateResponse) {
+        this.ipParameters = params;
+        this.poolSize = poolSize < 1 ? 1 : poolSize;
+        this.validateResponse = validateResponse;
+    }
+
+    /**
+     * <p>Getter for the field <code>poolSize</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * <p>getIdleCount.</p>
+     *
+     * @return the number of connections that are currently not in use.
+     */
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    synchronized public void init() throws ModbusInitException {
+        // Connections are opened on first use. Open one now so that configuration problems show up here.
+        for (int i = 0; i < poolSize; i++)
+            idleConnections.add(createConnection());
+        TcpMaster first = idleConnections.peekFirst();
+        try {
+            first.init();
+        }
+        catch (ModbusInitException e) {
+            destroyConnections();
+            throw e;
+        }
+        initialized = true;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    synchronized public void destroy() {
+        initialized = false;
+        destroyConnections();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public ModbusResponse sendImpl(ModbusRequest request) throws ModbusTransportException {
+        return sendImpl(request, getTimeout(), getRetries());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries)
+            throws ModbusTransportException {
+        TcpMaster connection = borrow(request);
+        boolean broken = true;
+        try {
+            ModbusResponse response = connection.sendImpl(request, timeout, retries);
+            broken = false;
+            return response;
+        }
+        catch (ModbusTransportException e) {
+            // A timeout only means that the slave did not answer, and says nothing about the socket, so the
+            // connection goes back to the pool. Other failures are I/O or connection problems.
+            if (e.getCause() instanceof TimeoutException)
+                broken = false;
+            throw e;
+        }
+        finally {
+            if (broken)
+                evict(connection);
+            else
+                release(connection);
+        }
+    }
+
+    /**
+     * Creates a pool member configured like this master. Subclasses may override to customize the connections.
+     *
+     * @return a new, uninitialized connection.
+     */
+    protected TcpMaster createConnection() {
+        TcpMaster connection = new TcpMaster(ipParameters, true, true, false, ipParameters.getLingerTime());
+        connection.setTimeout(getTimeout());
+        connection.setRetries(getRetries());
+        connection.setDiscardDataDelay(getDiscardDataDelay());
+        connection.setExceptionHandler(getExceptionHandler());
+        connection.setIoLog(getIoLog());
+        connection.setePoll(getePoll());
+        connection.setBlockingRead(isBlockingRead());
+        connection.setThreadFactory(getThreadFactory());
+        connection.setMaxReadBitCount(getMaxReadBitCount());
+        connection.setMaxReadRegisterCount(getMaxReadRegisterCount());
+        connection.setMaxWriteRegisterCount(getMaxWriteRegisterCount());
+        connection.setMaxWriteBitCount(getMaxWriteBitCount());
+        synchronized (allConnections) {
+            allConnections.add(connection);
+        }
+        return connection;
+    }
+
+    /**
+     * Checks a connection before it is handed out. The default only verifies that the socket is still open.
+     *
+     * @param connection a pooled connection that has been initialized.
+     * @return true if the connection can be used.
+     */
+    protected boolean isHealthy(TcpMaster connection) {
+        return connection.isConnectionOpen();
+    }
+
+    //
+    //
+    // Private methods
+    //
+    private TcpMaster borrow(ModbusRequest request) throws ModbusTransportException {
+        TcpMaster connection;
+        try {
+            // Prefer the most recently used connection, which is most likely to be open.
+            connection = idleConnections.pollFirst(getTimeout(), TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusTransportException(e, request.getSlaveId());
+        }
+
+        if (connection == null)
+            throw new ModbusTransportException("No pooled connection became available", request.getSlaveId());
+
+        try {
+            if (connection.isInitialized() && !isHealthy(connection)) {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Pooled connection to " + ipParameters.getHost() + " failed health check. Reopening.");
+                connection.destroy();
+            }
+            if (!connection.isInitialized())
+                connection.init();
+        }
+        catch (ModbusInitException e) {
+            evict(connection);
+            throw new ModbusTransportException(e, request.getSlaveId());
+        }
+
+        return connection;
+    }
+
+    private void release(TcpMaster connection) {
+        if (initialized)
+            idleConnections.addFirst(connection);
+        else
+            discard(connection);
+    }
+
+    /**
+     * Replaces a broken connection with a new one that will be opened on its next use.
+     */
+    private void evict(TcpMaster connection) {
+        discard(connection);
+        if (initialized)
+            idleConnections.addLast(createConnection());
+    }
+
+    private void discard(TcpMaster connection) {
+        synchronized (allConnections) {
+            allConnections.remove(connection);
+        }
+        connection.destroy();
+    }
+
+    private void destroyConnections() {
+        idleConnections.clear();
+        List<TcpMaster> connections;
+        synchronized (allConnections) {
+            connections = new ArrayList<>(allConnections);
+            allConnections.clear();
+        }
+        for (TcpMaster connection : connections)
+            connection.destroy();
+    }
+}
@@ -24,6 +24,9 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -46,6 +49,7 @@ import com.serotonin.modbus4j.sero.messaging.EpollStreamTransport;
 import com.serotonin.modbus4j.sero.messaging.MessageControl;
 import com.serotonin.modbus4j.sero.messaging.OutgoingRequestMessage;
 import com.serotonin.modbus4j.sero.messaging.StreamTransport;
+import com.serotonin.modbus4j.sero.messaging.TimeoutException;
 import com.serotonin.modbus4j.sero.messaging.Transport;
 import com.serotonin.modbus4j.sero.messaging.WaitingRoomKeyFactory;
 
@@ -65,11 +69,26 @@ public class TcpMaster extends ModbusMaster {
     private final boolean autoIncrementTransactionId;
     private final Integer lingerTime;
 
+    /**
+     * The maximum number of requests that may be outstanding on the socket at once. A value of 1 (the default) keeps
+     * the classic one-request-per-round-trip behaviour. Larger values allow requests from multiple threads to be
+     * written back-to-back, with responses matched to their callers by MBAP transaction id. Only applies to
+     * non-encapsulated keep-alive connections.
+     */
+    private int maxInFlight = 1;
+    private Semaphore inFlightPermits;
+    private boolean coalesceWrites;
+
     // Runtime fields.
     private Socket socket;
     private Transport transport;
     private MessageControl conn;
 
+    /**
+     * Guards the runtime fields and serializes non-pipelined requests. A lock rather than the object's monitor, so
+     * that a virtual thread that waits for a response while holding it does not pin its carrier thread.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * <p>Constructor for TcpMaster.</p>
@@ -164,29 +183,196 @@ public class TcpMaster extends ModbusMaster {
         return nextTransactionId;
     }
 
+    /**
+     * <p>Getter for the field <code>maxInFlight</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+
+    /**
+     * Sets the maximum number of requests that may be in flight on the connection at once. Values greater than 1
+     * enable pipelining, which requires keepAlive, a non-encapsulated connection and auto-incrementing transaction
+     * ids. This should be set before the master is initialized.
+     *
+     * @param maxInFlight a int, at most {@link MessageControl#MAX_IN_FLIGHT}.
+     */
+    public void setMaxInFlight(int maxInFlight) {
+        if (maxInFlight > MessageControl.MAX_IN_FLIGHT)
+            throw new IllegalArgumentException("maxInFlight must not be greater than " + MessageControl.MAX_IN_FLIGHT);
+        if (maxInFlight < 1)
+            maxInFlight = 1;
+        this.maxInFlight = maxInFlight;
+        inFlightPermits = maxInFlight > 1 ? new Semaphore(maxInFlight, true) : null;
+    }
+
+    /**
+     * <p>isCoalesceWrites.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isCoalesceWrites() {
+        return coalesceWrites;
+    }
+
+    /**
+     * Sets whether requests that are sent concurrently are gathered into a single socket write. See
+     * {@link com.serotonin.modbus4j.sero.messaging.MessageControl#setCoalesceWrites(boolean)}. This is only useful
+     * together with pipelining, and should be set before the master is initialized.
+     *
+     * @param coalesceWrites a boolean.
+     */
+    public void setCoalesceWrites(boolean coalesceWrites) {
+        this.coalesceWrites = coalesceWrites;
+    }
+
     /** {@inheritDoc} */
     @Override
-    synchronized public void init() throws ModbusInitException {
+    public boolean isPipelined() {
+        return inFlightPermits != null && keepAlive && autoIncrementTransactionId && !ipParameters.isEncapsulated();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void init() throws ModbusInitException {
+        lock.lock();
         try {
             if (keepAlive)
                 openConnection();
+            initialized = true;
         }
         catch (Exception e) {
             throw new ModbusInitException(e);
         }
-        initialized = true;
+        finally {
+            lock.unlock();
+        }
     }
 
     /** {@inheritDoc} */
     @Override
-    synchronized public void destroy() {
-        closeConnection();
-        initialized = false;
+    public void destroy() {
+        lock.lock();
+        try {
+            closeConnection();
+            initialized = false;
+        }
+        finally {
+            lock.unlock();
+        }
     }
 
     /** {@inheritDoc} */
     @Override
-    synchronized public ModbusResponse sendImpl(ModbusRequest request) throws ModbusTransportException {
+    public ModbusResponse sendImpl(ModbusRequest request) throws ModbusTransportException {
+        return sendImpl(request, getTimeout(), getRetries(), true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries)
+            throws ModbusTransportException {
+        return sendImpl(request, timeout, retries, false);
+    }
+
+    /**
+     * @param resend
+     *            whether to send the request once more on a reopened connection if it fails.
+     */
+    private ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries, boolean resend)
+            throws ModbusTransportException {
+        Semaphore permits = inFlightPermits;
+        if (permits != null && isPipelined())
+            return sendPipelined(request, permits, timeout, retries, resend);
+        lock.lock();
+        try {
+            return sendSerial(request, timeout, retries, resend);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * In pipelined mode the request is written directly and the response is delivered to the returned future by the
+     * connection's listener thread, so no thread is held while waiting. If all in-flight slots are taken, or the
+     * master is not pipelined, the request falls back to a blocking send on the async executor.
+     */
+    @Override
+    protected CompletableFuture<ModbusResponse> sendAsyncImpl(ModbusRequest request) {
+        CompletableFuture<ModbusResponse> result = sendPipelinedAsync(request, getTimeout(), getRetries());
+        if (result == null)
+            return super.sendAsyncImpl(request);
+        return result;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected CompletableFuture<ModbusResponse> sendAsyncImpl(ModbusRequest request, int timeout, int retries) {
+        CompletableFuture<ModbusResponse> result = sendPipelinedAsync(request, timeout, retries);
+        if (result == null)
+            return super.sendAsyncImpl(request, timeout, retries);
+        return result;
+    }
+
+    /**
+     * @return the future of the response, or null if the request cannot be sent asynchronously right now.
+     */
+    private CompletableFuture<ModbusResponse> sendPipelinedAsync(ModbusRequest request, int timeout, int retries) {
+        Semaphore permits = inFlightPermits;
+        if (permits == null || !isPipelined() || !permits.tryAcquire())
+            return null;
+
+        MessageControl sendConn;
+        XaMessageRequest ipRequest;
+        lock.lock();
+        try {
+            try {
+                if (conn == null)
+                    openConnection();
+            }
+            catch (Exception e) {
+                closeConnection();
+                permits.release();
+                return failedFuture(new ModbusTransportException(e, request.getSlaveId()));
+            }
+            sendConn = conn;
+            this.nextTransactionId++;
+            ipRequest = new XaMessageRequest(request, getNextTransactionId());
+        }
+        finally {
+            lock.unlock();
+        }
+
+        CompletableFuture<ModbusResponse> result = new CompletableFuture<>();
+        sendConn.sendAsync(ipRequest, timeout, retries, getScheduler(), getAsyncExecutor()).whenComplete((ipResponse, e) -> {
+            permits.release();
+            if (e != null) {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Exception sending async message", e);
+                lock.lock();
+                try {
+                    // Unlike the blocking path there is no immediate resend; the next request reopens the socket.
+                    if (conn == sendConn && !(e instanceof TimeoutException))
+                        closeConnection();
+                }
+                finally {
+                    lock.unlock();
+                }
+                result.completeExceptionally(new ModbusTransportException(e, request.getSlaveId()));
+            }
+            else
+                result.complete(getModbusResponse((IpMessageResponse) ipResponse));
+        });
+        return result;
+    }
+
+    private ModbusResponse sendSerial(ModbusRequest request, int timeout, int retries, boolean resend)
+            throws ModbusTransportException {
         try {
             // Check if we need to open the connection.
             if (!keepAlive)
@@ -230,7 +416,7 @@ public class TcpMaster extends ModbusMaster {
                 if(LOG.isDebugEnabled())
                     LOG.debug("Connection null: " +  ipParameters.getPort());
             }
-            ipResponse = (IpMessageResponse) conn.send(ipRequest);
+            ipResponse = (IpMessageResponse) conn.send(ipRequest, timeout, retries);
             if (ipResponse == null)
                 return null;
 
@@ -246,7 +432,12 @@ public class TcpMaster extends ModbusMaster {
         catch (Exception e) {
             if(LOG.isDebugEnabled())
                 LOG.debug("Exception sending message",e);
-            if (keepAlive) {
+            if (keepAlive && !resend) {
+                // Leave the reconnection to the next request. A timeout says nothing about the connection.
+                if (!(e instanceof TimeoutException))
+                    closeConnection();
+            }
+            else if (keepAlive) {
                 if(LOG.isDebugEnabled())
                     LOG.debug("KeepAlive - reconnect!");
                 // The connection may have been reset, so try to reopen it and attempt the message again.
@@ -254,7 +445,7 @@ public class TcpMaster extends ModbusMaster {
                     if(LOG.isDebugEnabled())
                         LOG.debug("Modbus4J: Keep-alive connection may have been reset. Attempting to re-open.");
                     openConnection();
-                    ipResponse = (IpMessageResponse) conn.send(ipRequest);
+                    ipResponse = (IpMessageResponse) conn.send(ipRequest, timeout, retries);
                     if (ipResponse == null)
                         return null;
                     if(LOG.isDebugEnabled()){
@@ -283,6 +474,102 @@ public class TcpMaster extends ModbusMaster {
         }
     }
 
+    /**
+     * Sends the request without holding the master's lock while waiting for the response, so that other threads
+     * can write their requests to the same socket in the meantime. The connection and the transaction id are only
+     * touched while holding the lock.
+     */
+    private ModbusResponse sendPipelined(ModbusRequest request, Semaphore permits, int timeout, int retries,
+            boolean resend) throws ModbusTransportException {
+        try {
+            permits.acquire();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ModbusTransportException(e, request.getSlaveId());
+        }
+
+        try {
+            MessageControl sendConn;
+            XaMessageRequest ipRequest;
+            lock.lock();
+            try {
+                try {
+                    if (conn == null)
+                        openConnection();
+                }
+                catch (Exception e) {
+                    closeConnection();
+                    throw new ModbusTransportException(e, request.getSlaveId());
+                }
+                sendConn = conn;
+                this.nextTransactionId++;
+                ipRequest = new XaMessageRequest(request, getNextTransactionId());
+            }
+            finally {
+                lock.unlock();
+            }
+
+            try {
+                return getModbusResponse((IpMessageResponse) sendConn.send(ipRequest, timeout, retries));
+            }
+            catch (Exception e) {
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Exception sending pipelined message", e);
+                // A timeout only means that one slave behind the socket did not answer. Reopening the connection
+                // would fail every other transaction in flight on it, so it is only done after I/O failures.
+                if (e instanceof TimeoutException)
+                    throw new ModbusTransportException(e, request.getSlaveId());
+
+                if (!resend) {
+                    lock.lock();
+                    try {
+                        if (conn == sendConn)
+                            closeConnection();
+                    }
+                    finally {
+                        lock.unlock();
+                    }
+                    throw new ModbusTransportException(e, request.getSlaveId());
+                }
+
+                // Only reopen the connection if no other in-flight request has already done so.
+                try {
+                    lock.lock();
+                    try {
+                        if (conn == sendConn)
+                            openConnection();
+                        sendConn = conn;
+                    }
+                    finally {
+                        lock.unlock();
+                    }
+                    return getModbusResponse((IpMessageResponse) sendConn.send(ipRequest, timeout, retries));
+                }
+                catch (Exception e2) {
+                    lock.lock();
+                    try {
+                        if (conn == sendConn)
+                            closeConnection();
+                    }
+                    finally {
+                        lock.unlock();
+                    }
+                    throw new ModbusTransportException(e2, request.getSlaveId());
+                }
+            }
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    private ModbusResponse getModbusResponse(IpMessageResponse ipResponse) {
+        if (ipResponse == null)
+            return null;
+        return ipResponse.getModbusResponse();
+    }
+
     //
     //
     // Private methods
@@ -302,8 +589,16 @@ public class TcpMaster extends ModbusMaster {
         socket.connect(new InetSocketAddress(ipParameters.getHost(), ipParameters.getPort()), getTimeout());
         if (getePoll() != null)
             transport = new EpollStreamTransport(socket.getInputStream(), socket.getOutputStream(), getePoll());
-        else
-            transport = new StreamTransport(socket.getInputStream(), socket.getOutputStream());
+        else {
+            StreamTransport streamTransport = new StreamTransport(socket.getInputStream(), socket.getOutputStream());
+            streamTransport.setThreadFactory(getThreadFactory());
+            if (isBlockingRead()) {
+                // The listener blocks in read(), so don't have it woken up by read timeouts while idle.
+                socket.setSoTimeout(0);
+                streamTransport.setBlockingRead(true);
+            }
+            transport = streamTransport;
+        }
 
         BaseMessageParser ipMessageParser;
         WaitingRoomKeyFactory waitingRoomKeyFactory;
@@ -317,6 +612,7 @@ public class TcpMaster extends ModbusMaster {
         }
 
         conn = getMessageControl();
+        conn.setCoalesceWrites(coalesceWrites);
         conn.start(transport, ipMessageParser, null, waitingRoomKeyFactory);
         if (getePoll() == null)
             ((StreamTransport) transport).start("Modbus4J TcpMaster");
@@ -336,6 +632,22 @@ public class TcpMaster extends ModbusMaster {
         socket = null;
     }
 
+    /**
+     * Checks whether the socket of a keep-alive connection is currently open. This does not detect a connection that
+     * was dropped by the peer without being noticed locally; that only shows up when the next request fails.
+     *
+     * @return true if the socket is open.
+     */
+    public boolean isConnectionOpen() {
+        lock.lock();
+        try {
+            return socket != null && socket.isConnected() && !socket.isClosed() && conn != null;
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * <p>Getter for the field <code>lingerTime</code>.</p>
      *
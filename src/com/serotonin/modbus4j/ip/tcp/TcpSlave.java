@@ -27,7 +27,6 @@ import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import com.serotonin.modbus4j.ModbusSlaveSet;
@@ -65,7 +64,7 @@ public class TcpSlave extends ModbusSlaveSet {
 
     // Runtime fields.
     private ServerSocket serverSocket;
-    final ExecutorService executorService;
+    volatile ExecutorService executorService;
     final List<TcpConnectionHandler> listConnections = new ArrayList<>();
 
     /**
@@ -88,7 +87,6 @@ public class TcpSlave extends ModbusSlaveSet {
     public TcpSlave(int port, boolean encapsulated) {
         this.port = port;
         this.encapsulated = encapsulated;
-        executorService = Executors.newCachedThreadPool();
     }
 
     /**
@@ -99,6 +97,7 @@ public class TcpSlave extends ModbusSlaveSet {
     @Override
     public void start() throws ModbusInitException {
         try {
+            executorService = createExecutorService();
             serverSocket = new ServerSocket(port);
 
             Socket socket;
@@ -117,6 +117,13 @@ public class UdpMaster extends ModbusMaster {
     /** {@inheritDoc} */
     @Override
     public ModbusResponse sendImpl(ModbusRequest request) throws ModbusTransportException {
+        return sendImpl(request, getTimeout(), getRetries());
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries)
+            throws ModbusTransportException {
         // Wrap the modbus request in an ip request.
         OutgoingRequestMessage ipRequest;
         if (ipParameters.isEncapsulated())
@@ -127,7 +134,9 @@ public class UdpMaster extends ModbusMaster {
         IpMessageResponse ipResponse;
 
         try {
-            int attempts = getRetries() + 1;
+            if (socket.getSoTimeout() != timeout)
+                socket.setSoTimeout(timeout);
+            int attempts = retries + 1;
 
             while (true) {
                 // Send the request.
@@ -174,7 +183,7 @@ public class UdpMaster extends ModbusMaster {
         // We could verify that the packet was received from the same address to which the request was sent,
         // but let's not bother with that yet.
 
-        ByteQueue queue = new ByteQueue(packet.getData(), 0, packet.getLength());
+        ByteQueue queue = ByteQueue.wrap(packet.getData(), packet.getOffset(), packet.getLength());
         IpMessageResponse response;
         try {
             response = (IpMessageResponse) messageParser.parseMessage(queue);
@@ -24,7 +24,6 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import com.serotonin.modbus4j.ModbusSlaveSet;
@@ -53,7 +52,7 @@ public class UdpSlave extends ModbusSlaveSet {
 
     // Runtime fields.
     DatagramSocket datagramSocket;
-    private final ExecutorService executorService;
+    private volatile ExecutorService executorService;
     final BaseMessageParser messageParser;
     final BaseRequestHandler requestHandler;
 
@@ -83,14 +82,13 @@ public class UdpSlave extends ModbusSlaveSet {
             messageParser = new XaMessageParser(false);
             requestHandler = new XaRequestHandler(this);
         }
-
-        executorService = Executors.newCachedThreadPool();
     }
 
     /** {@inheritDoc} */
     @Override
     public void start() throws ModbusInitException {
         try {
+            executorService = createExecutorService();
             datagramSocket = new DatagramSocket(port);
 
             DatagramPacket datagramPacket;
@@ -140,7 +138,8 @@ public class UdpSlave extends ModbusSlaveSet {
 
         public void run() {
             try {
-                ByteQueue requestQueue = new ByteQueue(requestPacket.getData(), 0, requestPacket.getLength());
+                ByteQueue requestQueue = ByteQueue.wrap(requestPacket.getData(), requestPacket.getOffset(),
+                        requestPacket.getLength());
 
                 // Parse the request data and get the response.
                 IncomingMessage request = messageParser.parseMessage(requestQueue);
@@ -51,20 +51,29 @@ public class XaMessage extends IpMessage {
      * @return an array of {@link byte} objects.
      */
     public byte[] getMessageData() {
-        ByteQueue msgQueue = new ByteQueue();
+        ByteQueue queue = new ByteQueue(64);
+        writeMessageData(queue);
+        return queue.popAll();
+    }
 
-        // Write the particular message.
-        modbusMessage.write(msgQueue);
+    /**
+     * Appends the complete frame to the given queue. The MBAP header is written first with a placeholder length, which
+     * is filled in once the PDU has been written.
+     *
+     * @param queue a {@link com.serotonin.modbus4j.sero.util.queue.ByteQueue} object.
+     */
+    public void writeMessageData(ByteQueue queue) {
+        int start = queue.size();
+        ModbusUtils.pushShort(queue, transactionId);
+        ModbusUtils.pushShort(queue, ModbusUtils.IP_PROTOCOL_ID);
+        ModbusUtils.pushShort(queue, 0);
 
-        // Create the XA message
-        ByteQueue xaQueue = new ByteQueue();
-        ModbusUtils.pushShort(xaQueue, transactionId);
-        ModbusUtils.pushShort(xaQueue, ModbusUtils.IP_PROTOCOL_ID);
-        ModbusUtils.pushShort(xaQueue, msgQueue.size());
-        xaQueue.push(msgQueue);
+        // Write the particular message.
+        modbusMessage.write(queue);
 
-        // Return the data.
-        return xaQueue.popAll();
+        int length = queue.size() - start - 6;
+        queue.set(start + 4, (byte) (0xff & (length >> 8)));
+        queue.set(start + 5, (byte) (0xff & length));
     }
 
     /**
@@ -46,6 +46,11 @@ public class XaWaitingRoomKeyFactory implements WaitingRoomKeyFactory {
             this.functionCode = msg.getFunctionCode();
         }
 
+        @Override
+        public int getTransactionSlot() {
+            return transactionId & 0xffff;
+        }
+
         @Override
         public int hashCode() {
             final int prime = 31;
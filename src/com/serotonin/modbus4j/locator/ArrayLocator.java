@@ -0,0 +1,177 @@
+package com.serotonin.modbus4j.locator;
+
+import java.math.BigInteger;
+
+import com.serotonin.modbus4j.code.DataType;
+import com.serotonin.modbus4j.code.RegisterRange;
+import com.serotonin.modbus4j.exception.IllegalDataTypeException;
+import com.serotonin.modbus4j.exception.InvalidDataConversionException;
+import com.serotonin.modbus4j.util.NumericDecoder;
+
+/**
+ * <p>ArrayLocator class.</p>
+ *
+ * Locates a contiguous array of numeric values of a single data type, such as a waveform or a table of harmonics, and
+ * reads it as a primitive array with the bulk methods of {@link com.serotonin.modbus4j.util.NumericDecoder} rather
+ * than as one locator and one boxed value per element. The type of the array depends on the element data type: int[]
+ * for types whose values are Short or Integer, long[] for Long and BigInteger (8 byte unsigned values wrap as in
+ * {@link com.serotonin.modbus4j.util.NumericDecoder#decodeLong(byte[], int)}), float[] for 4 byte floats and double[]
+ * for 8 byte floats. Any of these array types can be written, as long as it has the locator's count of elements.
+ *
+ * In a batch read an array is read with a single request, so it cannot be longer than the master's max read count.
+ * {@link com.serotonin.modbus4j.ModbusMaster#getValue(BaseLocator)} and
+ * {@link com.serotonin.modbus4j.ModbusMaster#setValue(BaseLocator, Object)} split longer arrays over several requests.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+public class ArrayLocator extends BaseLocator<Object> {
+    private final NumericLocator element;
+    private final int count;
+
+    /**
+     * <p>Constructor for ArrayLocator.</p>
+     *
+     * @param slaveId a int.
+     * @param range a int.
+     * @param offset a int.
+     * @param dataType the data type of the elements.
+     * @param count the number of elements.
+     */
+    public ArrayLocator(int slaveId, int range, int offset, int dataType, int count) {
+        super(slaveId, range, offset);
+        if (dataType == DataType.BINARY || dataType == DataType.CHAR || dataType == DataType.VARCHAR)
+            throw new IllegalDataTypeException("Only numeric data types can be read as arrays");
+        element = new NumericLocator(slaveId, range, offset, dataType);
+        this.count = count;
+        validate();
+    }
+
+    private void validate() {
+        if (count < 1)
+            throw new IllegalArgumentException("count must be at least 1");
+        super.validate(getRegisterCount());
+
+        if (range == RegisterRange.COIL_STATUS || range == RegisterRange.INPUT_STATUS)
+            throw new IllegalDataTypeException("Only binary values can be read from Coil and Input ranges");
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getDataType() {
+        return element.getDataType();
+    }
+
+    /**
+     * <p>Getter for the field <code>count</code>.</p>
+     *
+     * @return the number of elements.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * <p>getElementRegisterCount.</p>
+     *
+     * @return the number of registers of each element.
+     */
+    public int getElementRegisterCount() {
+        return element.getRegisterCount();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getRegisterCount() {
+        return count * element.getRegisterCount();
+    }
+
+    /**
+     * <p>getArrayType.</p>
+     *
+     * @return the class of the arrays that are read: int[], long[], float[] or double[].
+     */
+    public Class<?> getArrayType() {
+        Class<?> type = DataType.getJavaType(getDataType());
+        if (type == Float.class)
+            return float[].class;
+        if (type == Double.class)
+            return double[].class;
+        if (type == Long.class || type == BigInteger.class)
+            return long[].class;
+        return int[].class;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "ArrayLocator(slaveId=" + getSlaveId() + ", range=" + range + ", offset=" + offset + ", dataType="
+                + getDataType() + ", count=" + count + ")";
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Object bytesToValueRealOffset(byte[] data, int offset) {
+        NumericDecoder decoder = element.getDecoder();
+        Class<?> type = getArrayType();
+        if (type == float[].class) {
+            float[] values = new float[count];
+            decoder.decodeFloats(data, offset, values, 0, count);
+            return values;
+        }
+        if (type == double[].class) {
+            double[] values = new double[count];
+            decoder.decodeDoubles(data, offset, values, 0, count);
+            return values;
+        }
+        if (type == long[].class) {
+            long[] values = new long[count];
+            decoder.decodeLongs(data, offset, values, 0, count);
+            return values;
+        }
+        int[] values = new int[count];
+        decoder.decodeInts(data, offset, values, 0, count);
+        return values;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public short[] valueToShorts(Object value) {
+        checkArray(value);
+        int elementRegisterCount = element.getRegisterCount();
+        short[] result = new short[getRegisterCount()];
+        for (int i = 0; i < count; i++) {
+            short[] s = element.valueToShorts(getElement(value, i));
+            System.arraycopy(s, 0, result, i * elementRegisterCount, elementRegisterCount);
+        }
+        return result;
+    }
+
+    private void checkArray(Object value) {
+        int length;
+        if (value instanceof int[])
+            length = ((int[]) value).length;
+        else if (value instanceof long[])
+            length = ((long[]) value).length;
+        else if (value instanceof float[])
+            length = ((float[]) value).length;
+        else if (value instanceof double[])
+            length = ((double[]) value).length;
+        else
+            throw new InvalidDataConversionException("Only int, long, float or double arrays can be written to "
+                    + "array locators");
+
+        if (length != count)
+            throw new InvalidDataConversionException("Array has " + length + " elements, expected " + count);
+    }
+
+    private static Number getElement(Object value, int index) {
+        if (value instanceof int[])
+            return ((int[]) value)[index];
+        if (value instanceof long[])
+            return ((long[]) value)[index];
+        if (value instanceof float[])
+            return ((float[]) value)[index];
+        return ((double[]) value)[index];
+    }
+}
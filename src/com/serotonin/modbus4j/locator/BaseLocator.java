@@ -90,6 +90,32 @@ abstract public class BaseLocator<T> {
         return new BinaryLocator(slaveId, RegisterRange.HOLDING_REGISTER, offset, bit);
     }
 
+    /**
+     * <p>inputRegisterArray.</p>
+     *
+     * @param slaveId a int.
+     * @param offset a int.
+     * @param dataType the data type of the elements.
+     * @param count the number of elements.
+     * @return a {@link com.serotonin.modbus4j.locator.ArrayLocator} object.
+     */
+    public static ArrayLocator inputRegisterArray(int slaveId, int offset, int dataType, int count) {
+        return new ArrayLocator(slaveId, RegisterRange.INPUT_REGISTER, offset, dataType, count);
+    }
+
+    /**
+     * <p>holdingRegisterArray.</p>
+     *
+     * @param slaveId a int.
+     * @param offset a int.
+     * @param dataType the data type of the elements.
+     * @param count the number of elements.
+     * @return a {@link com.serotonin.modbus4j.locator.ArrayLocator} object.
+     */
+    public static ArrayLocator holdingRegisterArray(int slaveId, int offset, int dataType, int count) {
+        return new ArrayLocator(slaveId, RegisterRange.HOLDING_REGISTER, offset, dataType, count);
+    }
+
     /**
      * <p>createLocator.</p>
      *
@@ -4,12 +4,12 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 
-import com.serotonin.modbus4j.util.DataParser;
 import org.apache.commons.lang3.ArrayUtils;
 
 import com.serotonin.modbus4j.code.DataType;
 import com.serotonin.modbus4j.code.RegisterRange;
 import com.serotonin.modbus4j.exception.IllegalDataTypeException;
+import com.serotonin.modbus4j.util.NumericDecoder;
 
 /**
  * <p>NumericLocator class.</p>
@@ -51,6 +51,7 @@ public class NumericLocator extends BaseLocator<Number> {
     };
 
     private final int dataType;
+    private final NumericDecoder decoder;
     private RoundingMode roundingMode = RoundingMode.HALF_UP;
 
     /**
@@ -65,6 +66,7 @@ public class NumericLocator extends BaseLocator<Number> {
         super(slaveId, range, offset);
         this.dataType = dataType;
         validate();
+        decoder = NumericDecoder.forDataType(dataType);
     }
 
     private void validate() {
@@ -83,6 +85,48 @@ public class NumericLocator extends BaseLocator<Number> {
         return dataType;
     }
 
+    /**
+     * <p>Getter for the field <code>decoder</code>.</p>
+     *
+     * @return a {@link com.serotonin.modbus4j.util.NumericDecoder} object.
+     */
+    public NumericDecoder getDecoder() {
+        return decoder;
+    }
+
+    /**
+     * Primitive counterpart of bytesToValue. See {@link com.serotonin.modbus4j.util.NumericDecoder}.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param requestOffset a int.
+     * @return a int.
+     */
+    public int bytesToInt(byte[] data, int requestOffset) {
+        return decoder.decodeInt(data, offset - requestOffset);
+    }
+
+    /**
+     * Primitive counterpart of bytesToValue. See {@link com.serotonin.modbus4j.util.NumericDecoder}.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param requestOffset a int.
+     * @return a long.
+     */
+    public long bytesToLong(byte[] data, int requestOffset) {
+        return decoder.decodeLong(data, offset - requestOffset);
+    }
+
+    /**
+     * Primitive counterpart of bytesToValue. See {@link com.serotonin.modbus4j.util.NumericDecoder}.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param requestOffset a int.
+     * @return a double.
+     */
+    public double bytesToDouble(byte[] data, int requestOffset) {
+        return decoder.decodeDouble(data, offset - requestOffset);
+    }
+
     /**
      * <p>Getter for the field <code>roundingMode</code>.</p>
      *
@@ -153,7 +197,7 @@ public class NumericLocator extends BaseLocator<Number> {
     /** {@inheritDoc} */
     @Override
     public Number bytesToValueRealOffset(byte[] data, int offset) {
-        return DataParser.bytesToNumber(data, offset, dataType);
+        return decoder.decode(data, offset);
     }
 
     private static void appendBCD(StringBuilder sb, byte b) {
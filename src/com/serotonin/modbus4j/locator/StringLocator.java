@@ -1,6 +1,13 @@
 package com.serotonin.modbus4j.locator;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import com.serotonin.modbus4j.code.DataType;
 import com.serotonin.modbus4j.code.RegisterRange;
@@ -10,6 +17,10 @@ import com.serotonin.modbus4j.util.DataParser;
 /**
  * <p>StringLocator class.</p>
  *
+ * Strings such as serial numbers and tag names rarely change, so a locator can be set to cache its decoded value.
+ * It then keeps the raw bytes of the last value it decoded, and while a read returns the same bytes it returns the
+ * same String rather than decoding a new one. Values are encoded with a CharsetEncoder that is reused by each thread.
+ *
  * @author Matthew Lohbihler
  * @version 5.0.0
  */
@@ -17,9 +28,13 @@ public class StringLocator extends BaseLocator<String> {
     /** Constant <code>ASCII</code> */
     public static final Charset ASCII = Charset.forName("ASCII");
 
+    private static final ThreadLocal<Encoding> ENCODING = ThreadLocal.withInitial(Encoding::new);
+
     private final int dataType;
     private final int registerCount;
     private final Charset charset;
+    private boolean cacheDecodedValue;
+    private volatile DecodedValue lastDecoded;
 
     /**
      * <p>Constructor for StringLocator.</p>
@@ -74,6 +89,27 @@ public class StringLocator extends BaseLocator<String> {
         return registerCount;
     }
 
+    /**
+     * <p>isCacheDecodedValue.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isCacheDecodedValue() {
+        return cacheDecodedValue;
+    }
+
+    /**
+     * Sets whether the last decoded value is kept and returned again while the registers are unchanged. Caching costs
+     * a copy of the registers whenever the value changes, so it is best suited to strings that are mostly constant.
+     *
+     * @param cacheDecodedValue a boolean.
+     */
+    public void setCacheDecodedValue(boolean cacheDecodedValue) {
+        this.cacheDecodedValue = cacheDecodedValue;
+        if (!cacheDecodedValue)
+            lastDecoded = null;
+    }
+
     /** {@inheritDoc} */
     @Override
     public String toString() {
@@ -84,7 +120,16 @@ public class StringLocator extends BaseLocator<String> {
     /** {@inheritDoc} */
     @Override
     public String bytesToValueRealOffset(byte[] data, int offset) {
-        return DataParser.bytesToString(data, offset, registerCount, dataType, charset);
+        if (!cacheDecodedValue)
+            return DataParser.bytesToString(data, offset, registerCount, dataType, charset);
+
+        DecodedValue last = lastDecoded;
+        if (last != null && last.matches(data, offset * 2))
+            return last.value;
+
+        String value = DataParser.bytesToString(data, offset, registerCount, dataType, charset);
+        lastDecoded = new DecodedValue(Arrays.copyOfRange(data, offset * 2, (offset + registerCount) * 2), value);
+        return value;
     }
 
     /** {@inheritDoc} */
@@ -95,14 +140,10 @@ public class StringLocator extends BaseLocator<String> {
 
         int length;
         if (value != null) {
-            byte[] bytes = value.getBytes(charset);
-
-            length = resultByteLen;
-            if (length > bytes.length)
-                length = bytes.length;
-
+            ByteBuffer bytes = encode(value, resultByteLen);
+            length = bytes.position();
             for (int i = 0; i < length; i++)
-                setByte(result, i, bytes[i] & 0xff);
+                setByte(result, i, bytes.get(i) & 0xff);
         }
         else
             length = 0;
@@ -134,6 +175,59 @@ public class StringLocator extends BaseLocator<String> {
         else
             s[byteIndex / 2] |= value;
     }
+
+    /**
+     * Encodes as much of the value as fits in the given number of bytes into the calling thread's buffer, without
+     * splitting a character. As with String.getBytes, characters that cannot be encoded are replaced.
+     */
+    private ByteBuffer encode(String value, int maxLength) {
+        Encoding encoding = ENCODING.get();
+        CharsetEncoder encoder = encoding.encoders.get(charset);
+        if (encoder == null) {
+            encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            encoding.encoders.put(charset, encoder);
+        }
+        if (encoding.bytes.length < maxLength)
+            encoding.bytes = new byte[maxLength];
+
+        ByteBuffer buffer = ByteBuffer.wrap(encoding.bytes, 0, maxLength);
+        encoder.reset();
+        encoder.encode(CharBuffer.wrap(value), buffer, true);
+        encoder.flush(buffer);
+        return buffer;
+    }
+
+    /**
+     * The encoders and scratch buffer of a thread.
+     */
+    private static class Encoding {
+        final Map<Charset, CharsetEncoder> encoders = new HashMap<>();
+        byte[] bytes = new byte[0];
+    }
+
+    /**
+     * The raw bytes of a decoded value. Instances are immutable, so they can be shared between threads.
+     */
+    private static class DecodedValue {
+        final byte[] bytes;
+        final String value;
+
+        DecodedValue(byte[] bytes, String value) {
+            this.bytes = bytes;
+            this.value = value;
+        }
+
+        boolean matches(byte[] data, int start) {
+            if (start + bytes.length > data.length)
+                return false;
+            for (int i = 0; i < bytes.length; i++) {
+                if (data[start + i] != bytes[i])
+                    return false;
+            }
+            return true;
+        }
+    }
     //
     //    public static void main(String[] args) {
     //        StringLocator l1 = new StringLocator(1, RegisterRange.HOLDING_REGISTER, 0, DataType.CHAR, 4);
@@ -73,6 +73,8 @@ abstract public class ModbusRequest extends ModbusMessage {
             request = new WriteRegistersRequest(slaveId);
         } else if (functionCode == FunctionCode.REPORT_SLAVE_ID) {
             request = new ReportSlaveIdRequest(slaveId);
+        } else if (functionCode == FunctionCode.READ_WRITE_MULTIPLE_REGISTERS) {
+            request = new ReadWriteMultipleRegistersRequest(slaveId);
         } // else if (functionCode == FunctionCode.WRITE_MASK_REGISTER)
         // request = new WriteMaskRegisterRequest(slaveId);
         else {
@@ -20,6 +20,9 @@
  */
 package com.serotonin.modbus4j.msg;
 
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
 import com.serotonin.modbus4j.base.ModbusUtils;
 import com.serotonin.modbus4j.exception.ModbusTransportException;
 import com.serotonin.modbus4j.sero.io.StreamUtils;
@@ -70,6 +73,17 @@ abstract public class ReadResponse extends ModbusResponse {
         return data;
     }
 
+    /**
+     * <p>getDataBuffer.</p>
+     *
+     * @return a read-only view of the response payload that shares its storage rather than copying it.
+     */
+    public ByteBuffer getDataBuffer() {
+        if (data == null)
+            return null;
+        return ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
     /**
      * <p>getShortData.</p>
      *
@@ -88,6 +102,16 @@ abstract public class ReadResponse extends ModbusResponse {
         return convertToBooleans(data);
     }
 
+    /**
+     * <p>getBitSet.</p>
+     *
+     * @return the coils or inputs of the response, with bit i being the value at the request's start offset plus i.
+     *         Unlike getBooleanData, no array of the size of the response is created.
+     */
+    public BitSet getBitSet() {
+        return BitSet.valueOf(data);
+    }
+
     /**
      * <p>toString.</p>
      *
@@ -0,0 +1,178 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j.msg;
+
+import com.serotonin.modbus4j.Modbus;
+import com.serotonin.modbus4j.ProcessImage;
+import com.serotonin.modbus4j.base.ModbusUtils;
+import com.serotonin.modbus4j.code.ExceptionCode;
+import com.serotonin.modbus4j.code.FunctionCode;
+import com.serotonin.modbus4j.exception.ModbusTransportException;
+import com.serotonin.modbus4j.sero.util.queue.ByteQueue;
+
+/**
+ * <p>
+ * ReadWriteMultipleRegistersRequest class.</p>
+ *
+ * Writes a block of holding registers and reads another, in a single transaction. The write is done before the read.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+public class ReadWriteMultipleRegistersRequest extends ModbusRequest {
+    /** The largest number of registers that the protocol allows to be read by this function. */
+    public static final int MAX_READ_COUNT = 125;
+    /** The largest number of registers that the protocol allows to be written by this function. */
+    public static final int MAX_WRITE_COUNT = 121;
+
+    private int readOffset;
+    private int readCount;
+    private int writeOffset;
+    private int writeCount;
+    private byte[] writeData;
+
+    /**
+     * <p>
+     * Constructor for ReadWriteMultipleRegistersRequest.</p>
+     *
+     * @param slaveId a int.
+     * @param readOffset a int.
+     * @param readCount a int.
+     * @param writeOffset a int.
+     * @param sdata an array of {@link short} objects.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     */
+    public ReadWriteMultipleRegistersRequest(int slaveId, int readOffset, int readCount, int writeOffset,
+            short[] sdata) throws ModbusTransportException {
+        super(slaveId);
+        this.readOffset = readOffset;
+        this.readCount = readCount;
+        this.writeOffset = writeOffset;
+        writeCount = sdata.length;
+        writeData = convertToBytes(sdata);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void validate(Modbus modbus) throws ModbusTransportException {
+        ModbusUtils.validateOffset(readOffset);
+        modbus.validateNumberOfRegisters(readCount);
+        if (readCount > MAX_READ_COUNT) {
+            throw new ModbusTransportException("Invalid number of registers: " + readCount, slaveId);
+        }
+        ModbusUtils.validateEndOffset(readOffset + readCount - 1);
+
+        ModbusUtils.validateOffset(writeOffset);
+        if (writeCount < 1 || writeCount > Math.min(modbus.getMaxWriteRegisterCount(), MAX_WRITE_COUNT)) {
+            throw new ModbusTransportException("Invalid number of registers: " + writeCount, slaveId);
+        }
+        ModbusUtils.validateEndOffset(writeOffset + writeCount - 1);
+    }
+
+    ReadWriteMultipleRegistersRequest(int slaveId) throws ModbusTransportException {
+        super(slaveId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void writeRequest(ByteQueue queue) {
+        ModbusUtils.pushShort(queue, readOffset);
+        ModbusUtils.pushShort(queue, readCount);
+        ModbusUtils.pushShort(queue, writeOffset);
+        ModbusUtils.pushShort(queue, writeData.length / 2);
+        ModbusUtils.pushByte(queue, writeData.length);
+        queue.push(writeData);
+    }
+
+    @Override
+    ModbusResponse handleImpl(ProcessImage processImage) throws ModbusTransportException {
+        // The counts are checked here as well, since the slave's own limits may have been raised beyond what the
+        // protocol allows for this function.
+        if (readCount < 1 || readCount > MAX_READ_COUNT || writeCount < 1 || writeCount > MAX_WRITE_COUNT
+                || writeData.length != writeCount * 2) {
+            return handleException(ExceptionCode.ILLEGAL_DATA_VALUE);
+        }
+
+        short[] sdata = processImage.readWriteHoldingRegisters(readOffset, readCount, writeOffset,
+                convertToShorts(writeData));
+        return new ReadWriteMultipleRegistersResponse(slaveId, convertToBytes(sdata));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public byte getFunctionCode() {
+        return FunctionCode.READ_WRITE_MULTIPLE_REGISTERS;
+    }
+
+    @Override
+    ModbusResponse getResponseInstance(int slaveId) throws ModbusTransportException {
+        return new ReadWriteMultipleRegistersResponse(slaveId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void readRequest(ByteQueue queue) {
+        readOffset = ModbusUtils.popUnsignedShort(queue);
+        readCount = ModbusUtils.popUnsignedShort(queue);
+        writeOffset = ModbusUtils.popUnsignedShort(queue);
+        writeCount = ModbusUtils.popUnsignedShort(queue);
+        writeData = new byte[ModbusUtils.popUnsignedByte(queue)];
+        queue.pop(writeData);
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>readOffset</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getReadOffset() {
+        return readOffset;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>readCount</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getReadCount() {
+        return readCount;
+    }
+
+    /**
+     * <p>
+     * Getter for the field <code>writeOffset</code>.</p>
+     *
+     * @return a int.
+     */
+    public int getWriteOffset() {
+        return writeOffset;
+    }
+}
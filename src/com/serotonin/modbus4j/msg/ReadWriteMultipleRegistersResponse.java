@@ -0,0 +1,55 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j.msg;
+
+import com.serotonin.modbus4j.code.FunctionCode;
+import com.serotonin.modbus4j.exception.ModbusTransportException;
+
+/**
+ * <p>ReadWriteMultipleRegistersResponse class.</p>
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+public class ReadWriteMultipleRegistersResponse extends ReadResponse {
+    ReadWriteMultipleRegistersResponse(int slaveId, byte[] data) throws ModbusTransportException {
+        super(slaveId, data);
+    }
+
+    ReadWriteMultipleRegistersResponse(int slaveId) throws ModbusTransportException {
+        super(slaveId);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public byte getFunctionCode() {
+        return FunctionCode.READ_WRITE_MULTIPLE_REGISTERS;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "ReadWriteMultipleRegistersResponse [exceptionCode=" + exceptionCode + ", slaveId=" + slaveId
+                + ", getFunctionCode()=" + getFunctionCode() + ", isException()=" + isException()
+                + ", getExceptionMessage()=" + getExceptionMessage() + ", getExceptionCode()=" + getExceptionCode()
+                + ", toString()=" + super.toString(true) + "]";
+    }
+}
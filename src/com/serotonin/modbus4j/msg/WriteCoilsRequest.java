@@ -20,6 +20,9 @@
  */
 package com.serotonin.modbus4j.msg;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
 import com.serotonin.modbus4j.Modbus;
 import com.serotonin.modbus4j.ProcessImage;
 import com.serotonin.modbus4j.base.ModbusUtils;
@@ -53,6 +56,24 @@ public class WriteCoilsRequest extends ModbusRequest {
         data = convertToBytes(bdata);
     }
 
+    /**
+     * <p>Constructor for WriteCoilsRequest.</p>
+     *
+     * @param slaveId a int.
+     * @param startOffset a int.
+     * @param bits the values to write, with bit i being the value of the coil at the start offset plus i.
+     * @param numberOfBits the number of coils to write.
+     * @throws com.serotonin.modbus4j.exception.ModbusTransportException if any.
+     */
+    public WriteCoilsRequest(int slaveId, int startOffset, BitSet bits, int numberOfBits)
+            throws ModbusTransportException {
+        super(slaveId);
+        this.startOffset = startOffset;
+        this.numberOfBits = numberOfBits;
+        // BitSet uses the same byte and bit order as the request, but drops trailing zero bytes.
+        data = Arrays.copyOf(bits.get(0, numberOfBits).toByteArray(), (numberOfBits + 7) / 8);
+    }
+
     /** {@inheritDoc} */
     @Override
     public void validate(Modbus modbus) throws ModbusTransportException {
@@ -105,8 +105,11 @@ abstract public class SerialMaster extends ModbusMaster {
                             wrapper.getOutputStream(),
                             getePoll());
                 }else {
-                    transport = new StreamTransport(wrapper.getInputStream(),
+                    StreamTransport streamTransport = new StreamTransport(wrapper.getInputStream(),
                             wrapper.getOutputStream());
+                    streamTransport.setBlockingRead(isBlockingRead());
+                    streamTransport.setThreadFactory(getThreadFactory());
+                    transport = streamTransport;
                 }
                 break;
             }catch(Exception e) {
@@ -58,6 +58,7 @@ abstract public class SerialSlave extends ModbusSlaveSet {
         	wrapper.open();
 
             transport = new StreamTransport(wrapper.getInputStream(), wrapper.getOutputStream());
+            transport.setThreadFactory(getThreadFactory());
         }
         catch (Exception e) {
             throw new ModbusInitException(e);
@@ -98,22 +98,36 @@ public class AsciiMaster extends SerialMaster {
     /** {@inheritDoc} */
     @Override
     public ModbusResponse sendImpl(ModbusRequest request) throws ModbusTransportException {
+        return sendImpl(request, getTimeout(), getRetries(), true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries)
+            throws ModbusTransportException {
+        return sendImpl(request, timeout, retries, false);
+    }
+
+    private ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries, boolean resend)
+            throws ModbusTransportException {
         // Wrap the modbus request in an ascii request.
         AsciiMessageRequest asciiRequest = new AsciiMessageRequest(request);
 
         // Send the request to get the response.
         AsciiMessageResponse asciiResponse;
         try {
-            asciiResponse = (AsciiMessageResponse) conn.send(asciiRequest);
+            asciiResponse = (AsciiMessageResponse) conn.send(asciiRequest, timeout, retries);
             if (asciiResponse == null)
                 return null;
             return asciiResponse.getModbusResponse();
         }
         catch (Exception e) {
+            if (!resend)
+                throw new ModbusTransportException(e, request.getSlaveId());
             try {
                 LOG.debug("Connection may have been reset. Attempting to re-open.");
                 openConnection(conn);
-                asciiResponse = (AsciiMessageResponse) conn.send(asciiRequest);
+                asciiResponse = (AsciiMessageResponse) conn.send(asciiRequest, timeout, retries);
                 if (asciiResponse == null)
                     return null;
                 return asciiResponse.getModbusResponse();
@@ -60,7 +60,7 @@ abstract public class AsciiMessage extends SerialMessage {
         // Remove the message from the queue, leaving the LRC there
         byte[] asciiBytes = new byte[end - 2];
         queue.pop(asciiBytes);
-        ByteQueue msgQueue = new ByteQueue(asciiBytes);
+        ByteQueue msgQueue = ByteQueue.wrap(asciiBytes, 0, asciiBytes.length);
 
         // Pop off the LRC
         byte givenLrc = readAscii(queue);
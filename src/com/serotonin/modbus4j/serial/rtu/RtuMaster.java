@@ -104,22 +104,36 @@ public class RtuMaster extends SerialMaster {
     /** {@inheritDoc} */
     @Override
     public ModbusResponse sendImpl(ModbusRequest request) throws ModbusTransportException {
+        return sendImpl(request, getTimeout(), getRetries(), true);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries)
+            throws ModbusTransportException {
+        return sendImpl(request, timeout, retries, false);
+    }
+
+    private ModbusResponse sendImpl(ModbusRequest request, int timeout, int retries, boolean resend)
+            throws ModbusTransportException {
         // Wrap the modbus request in an rtu request.
         RtuMessageRequest rtuRequest = new RtuMessageRequest(request);
 
         // Send the request to get the response.
         RtuMessageResponse rtuResponse;
         try {
-            rtuResponse = (RtuMessageResponse) conn.send(rtuRequest);
+            rtuResponse = (RtuMessageResponse) conn.send(rtuRequest, timeout, retries);
             if (rtuResponse == null)
                 return null;
             return rtuResponse.getModbusResponse();
         }
         catch (Exception e) {
+            if (!resend)
+                throw new ModbusTransportException(e, request.getSlaveId());
             try {
                 LOG.debug("Connection may have been reset. Attempting to re-open.");
                 openConnection(conn);
-                rtuResponse = (RtuMessageResponse) conn.send(rtuRequest);
+                rtuResponse = (RtuMessageResponse) conn.send(rtuRequest, timeout, retries);
                 if (rtuResponse == null)
                     return null;
                 return rtuResponse.getModbusResponse();
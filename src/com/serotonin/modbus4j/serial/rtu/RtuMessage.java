@@ -47,15 +47,24 @@ public class RtuMessage extends SerialMessage {
      * @return an array of {@link byte} objects.
      */
     public byte[] getMessageData() {
-        ByteQueue queue = new ByteQueue();
+        ByteQueue queue = new ByteQueue(64);
+        writeMessageData(queue);
+        return queue.popAll();
+    }
+
+    /**
+     * Appends the complete frame to the given queue. The CRC is calculated over the bytes just written rather than by
+     * serializing the message a second time.
+     *
+     * @param queue a {@link com.serotonin.modbus4j.sero.util.queue.ByteQueue} object.
+     */
+    public void writeMessageData(ByteQueue queue) {
+        int start = queue.size();
 
         // Write the particular message.
         modbusMessage.write(queue);
 
         // Write the CRC
-        ModbusUtils.pushShort(queue, ModbusUtils.calculateCRC(modbusMessage));
-
-        // Return the data.
-        return queue.popAll();
+        ModbusUtils.pushShort(queue, ModbusUtils.calculateCRC(queue, start, queue.size() - start));
     }
 }
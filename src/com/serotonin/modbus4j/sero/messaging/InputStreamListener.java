@@ -1,10 +1,18 @@
 package com.serotonin.modbus4j.sero.messaging;
 
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.serotonin.modbus4j.sero.util.ThreadFactories;
+
 /**
  * This class provides a stoppable listener for an input stream that sends arbitrary information. A read() call to an
  * input stream will typically not return as long as the stream is not sending any data. This class provides a way for
@@ -27,6 +35,18 @@ public class InputStreamListener implements Runnable {
      */
     private int readDelay = DEFAULT_READ_DELAY;
 
+    /**
+     * If true, the listener blocks in read() instead of polling available() every readDelay ms, so data is handed to
+     * the consumer as soon as it arrives and an idle stream causes no wakeups. Only use this with streams whose read()
+     * blocks until data is available and that are closed to stop the listener, such as socket streams.
+     */
+    private boolean blockingRead;
+
+    // Wakes the polling loop when the listener is stopped. Not the object's monitor, so that a virtual listener thread
+    // does not pin its carrier thread while it waits.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stopped = lock.newCondition();
+
     /**
      * <p>Constructor for InputStreamListener.</p>
      *
@@ -58,13 +78,41 @@ public class InputStreamListener implements Runnable {
         this.readDelay = readDelay;
     }
 
+    /**
+     * <p>isBlockingRead.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isBlockingRead() {
+        return blockingRead;
+    }
+
+    /**
+     * <p>Setter for the field <code>blockingRead</code>.</p>
+     *
+     * @param blockingRead a boolean.
+     */
+    public void setBlockingRead(boolean blockingRead) {
+        this.blockingRead = blockingRead;
+    }
+
     /**
      * <p>start.</p>
      *
      * @param threadName a {@link java.lang.String} object.
      */
     public void start(String threadName) {
-        Thread thread = new Thread(this, threadName);
+        start(threadName, null);
+    }
+
+    /**
+     * <p>start.</p>
+     *
+     * @param threadName a {@link java.lang.String} object.
+     * @param threadFactory the factory of the listener thread, or null for a platform thread.
+     */
+    public void start(String threadName, ThreadFactory threadFactory) {
+        Thread thread = ThreadFactories.createThread(threadFactory, this, threadName);
         thread.setDaemon(true);
         thread.start();
     }
@@ -74,8 +122,12 @@ public class InputStreamListener implements Runnable {
      */
     public void stop() {
         running = false;
-        synchronized (this) {
-            notify();
+        lock.lock();
+        try {
+            stopped.signal();
+        }
+        finally {
+            lock.unlock();
         }
     }
 
@@ -83,19 +135,26 @@ public class InputStreamListener implements Runnable {
      * <p>run.</p>
      */
     public void run() {
+        if (blockingRead) {
+            runBlocking();
+            return;
+        }
+
         byte[] buf = new byte[1024];
         int readcount;
         try {
             while (running) {
                 try {
                     if (in.available() == 0) {
-                        synchronized (this) {
-                            try {
-                                wait(readDelay);
-                            }
-                            catch (InterruptedException e) {
-                                // no op
-                            }
+                        lock.lock();
+                        try {
+                            stopped.await(readDelay, TimeUnit.MILLISECONDS);
+                        }
+                        catch (InterruptedException e) {
+                            // no op
+                        }
+                        finally {
+                            lock.unlock();
                         }
                         continue;
                     }
@@ -116,4 +175,35 @@ public class InputStreamListener implements Runnable {
             running = false;
         }
     }
+
+    private void runBlocking() {
+        byte[] buf = new byte[1024];
+        int readcount;
+        try {
+            while (running) {
+                try {
+                    readcount = in.read(buf);
+                    if (readcount < 0) {
+                        if (running)
+                            consumer.handleIOException(new EOFException("Stream closed."));
+                        break;
+                    }
+                    if (readcount > 0)
+                        consumer.data(buf, readcount);
+                }
+                catch (SocketTimeoutException e) {
+                    // The socket has a read timeout. Check if we are still running and read again.
+                }
+                catch (IOException e) {
+                    // The stream is broken or was closed to stop the listener, either way there is no more data.
+                    if (running)
+                        consumer.handleIOException(e);
+                    break;
+                }
+            }
+        }
+        finally {
+            running = false;
+        }
+    }
 }
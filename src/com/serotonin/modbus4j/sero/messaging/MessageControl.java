@@ -1,6 +1,13 @@
 package com.serotonin.modbus4j.sero.messaging;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import com.serotonin.modbus4j.sero.io.StreamUtils;
 import com.serotonin.modbus4j.sero.log.BaseIOLog;
@@ -23,6 +30,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class MessageControl implements DataConsumer {
 
+    /**
+     * The most requests that can be outstanding at once on a connection whose waiting room keys are transaction ids.
+     */
+    public static final int MAX_IN_FLIGHT = WaitingRoom.SLOT_COUNT;
+
     private static int DEFAULT_RETRIES = 2;
     private static int DEFAULT_TIMEOUT = 500;
 
@@ -42,6 +54,21 @@ public class MessageControl implements DataConsumer {
     private final WaitingRoom waitingRoom = new WaitingRoom();
     private final ByteQueue dataBuffer = new ByteQueue();
 
+    /**
+     * Outgoing frames are encoded into this queue and copied into writeBytes, both of which are reused for every
+     * message written on this connection. Only used while synchronized on the transport, or in coalescing mode, on
+     * writeLock.
+     */
+    private final ByteQueue writeBuffer = new ByteQueue();
+    private byte[] writeBytes = new byte[256];
+
+    // Write coalescing. Frames are appended to the open batch, and one writer at a time takes the whole batch and
+    // writes it to the transport while the others wait for their batch to be written.
+    private boolean coalesceWrites;
+    private final Object writeLock = new Object();
+    private boolean writing;
+    private Batch openBatch = new Batch();
+
     /**
      * <p>
      * start.</p>
@@ -91,6 +118,28 @@ public class MessageControl implements DataConsumer {
         }
     }
 
+    /**
+     * <p>
+     * isCoalesceWrites.</p>
+     *
+     * @return a boolean.
+     */
+    public boolean isCoalesceWrites() {
+        return coalesceWrites;
+    }
+
+    /**
+     * Sets whether frames that are written by several threads at once are gathered into a single transport write.
+     * While one thread is writing, the frames of the others are queued behind it and then written together, so that
+     * bursts of concurrent requests need fewer system calls and network packets. Each caller still returns only once
+     * its own frame has been written. This should be set before the message control is started.
+     *
+     * @param coalesceWrites a boolean.
+     */
+    public void setCoalesceWrites(boolean coalesceWrites) {
+        this.coalesceWrites = coalesceWrites;
+    }
+
     /**
      * <p>
      * Getter for the field <code>retries</code>.</p>
@@ -223,9 +272,8 @@ public class MessageControl implements DataConsumer {
      * @throws java.io.IOException if any.
      */
     public IncomingResponseMessage send(OutgoingRequestMessage request, int timeout, int retries) throws IOException {
-        byte[] data = request.getMessageData();
         if (log.isDebugEnabled()) {
-            log.debug("MessagingControl.send: " + StreamUtils.dumpHex(data));
+            log.debug("MessagingControl.send: " + StreamUtils.dumpHex(request.getMessageData()));
         }
 
         IncomingResponseMessage response = null;
@@ -239,7 +287,7 @@ public class MessageControl implements DataConsumer {
             try {
                 do {
                     // Send the request.
-                    write(data);
+                    write(request);
 
                     // Wait for the response.
                     response = waitingRoom.getResponse(key, timeout);
@@ -257,12 +305,177 @@ public class MessageControl implements DataConsumer {
                 throw new TimeoutException("request=" + request);
             }
         } else {
-            write(data);
+            write(request);
         }
 
         return response;
     }
 
+    /**
+     * Asynchronous counterpart of {@link #send(OutgoingRequestMessage)}. No thread is blocked while waiting for the
+     * response: the returned future is completed by the data listener when the response arrives, while timeouts and
+     * retries are driven by the given scheduler.
+     *
+     * @param request a
+     * {@link com.serotonin.modbus4j.sero.messaging.OutgoingRequestMessage}
+     * object.
+     * @param scheduler the scheduler used for timeouts and retries.
+     * @return a future that completes with the response, or with null if no response is expected.
+     */
+    public CompletableFuture<IncomingResponseMessage> sendAsync(OutgoingRequestMessage request,
+            ScheduledExecutorService scheduler) {
+        return sendAsync(request, timeout, retries, scheduler);
+    }
+
+    /**
+     * <p>
+     * sendAsync.</p>
+     *
+     * @param request a
+     * {@link com.serotonin.modbus4j.sero.messaging.OutgoingRequestMessage}
+     * object.
+     * @param timeout a int.
+     * @param retries a int.
+     * @param scheduler the scheduler used for timeouts and retries.
+     * @return a future that completes with the response, or with null if no response is expected.
+     */
+    public CompletableFuture<IncomingResponseMessage> sendAsync(OutgoingRequestMessage request, int timeout,
+            int retries, ScheduledExecutorService scheduler) {
+        return sendAsync(request, timeout, retries, scheduler, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * <p>
+     * sendAsync.</p>
+     *
+     * @param request a
+     * {@link com.serotonin.modbus4j.sero.messaging.OutgoingRequestMessage}
+     * object.
+     * @param timeout a int.
+     * @param retries a int.
+     * @param scheduler the scheduler used for timeouts.
+     * @param executor the executor on which retries are written, so that a blocked write cannot hold up the
+     * scheduler.
+     * @return a future that completes with the response, or with null if no response is expected.
+     */
+    public CompletableFuture<IncomingResponseMessage> sendAsync(OutgoingRequestMessage request, int timeout,
+            int retries, ScheduledExecutorService scheduler, Executor executor) {
+        if (log.isDebugEnabled()) {
+            log.debug("MessagingControl.sendAsync: " + StreamUtils.dumpHex(request.getMessageData()));
+        }
+
+        if (!request.expectsResponse()) {
+            CompletableFuture<IncomingResponseMessage> result = new CompletableFuture<>();
+            try {
+                write(request);
+                result.complete(null);
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+
+        WaitingRoomKey key = waitingRoomKeyFactory.createWaitingRoomKey(request);
+        CompletableFuture<IncomingResponseMessage> future;
+        try {
+            future = waitingRoom.enterAsync(key);
+        } catch (WaitingRoomException e) {
+            CompletableFuture<IncomingResponseMessage> result = new CompletableFuture<>();
+            result.completeExceptionally(e);
+            return result;
+        }
+
+        // The caller only sees the result once the waiting room has been left, so that anything the caller does on
+        // completion, such as sending the next request, cannot find the slot still occupied.
+        CompletableFuture<IncomingResponseMessage> result = new CompletableFuture<>();
+        AsyncAttempt attempt = new AsyncAttempt(request, key, future, timeout, retries, scheduler, executor);
+        future.whenComplete((response, e) -> {
+            attempt.finish();
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(response);
+            }
+        });
+        result.whenComplete((response, e) -> {
+            if (result.isCancelled()) {
+                future.cancel(false);
+            }
+        });
+        attempt.send();
+        return result;
+    }
+
+    /**
+     * Tracks the attempts of a single asynchronous request. Each attempt writes the request and schedules a timeout;
+     * a timeout either starts the next attempt on the executor or fails the future once the retries are used up.
+     */
+    private class AsyncAttempt implements Runnable {
+        private final OutgoingRequestMessage request;
+        private final WaitingRoomKey key;
+        private final CompletableFuture<IncomingResponseMessage> future;
+        private final int timeout;
+        private final ScheduledExecutorService scheduler;
+        private final Executor executor;
+        private int retries;
+        private volatile ScheduledFuture<?> timer;
+
+        AsyncAttempt(OutgoingRequestMessage request, WaitingRoomKey key,
+                CompletableFuture<IncomingResponseMessage> future, int timeout, int retries,
+                ScheduledExecutorService scheduler, Executor executor) {
+            this.request = request;
+            this.key = key;
+            this.future = future;
+            this.timeout = timeout;
+            this.retries = retries;
+            this.scheduler = scheduler;
+            this.executor = executor;
+        }
+
+        void send() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                write(request);
+                timer = scheduler.schedule(this, timeout, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * Timeout expiry.
+         */
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Timeout waiting for response");
+            }
+            if (retries-- > 0) {
+                // The scheduler may be shared by many masters, so it must not block on this socket's write.
+                try {
+                    executor.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    future.completeExceptionally(e);
+                }
+            } else {
+                future.completeExceptionally(new TimeoutException("request=" + request));
+            }
+        }
+
+        void finish() {
+            ScheduledFuture<?> t = timer;
+            if (t != null) {
+                t.cancel(false);
+            }
+            waitingRoom.leave(key);
+        }
+    }
+
     /**
      * <p>
      * send.</p>
@@ -273,7 +486,7 @@ public class MessageControl implements DataConsumer {
      * @throws java.io.IOException if any.
      */
     public void send(OutgoingResponseMessage response) throws IOException {
-        write(response.getMessageData());
+        write(response);
     }
 
     /**
@@ -297,21 +510,33 @@ public class MessageControl implements DataConsumer {
             lastDataTimestamp = now;
         }
 
-        dataBuffer.push(b, 0, len);
+        if (dataBuffer.size() == 0) {
+            // No partial message is pending, so parse straight from the transport's array and only buffer whatever
+            // is left over. In the usual case of one complete message per read nothing is copied into dataBuffer.
+            ByteQueue direct = ByteQueue.wrap(b, 0, len);
+            parseMessages(direct);
+            if (direct.size() > 0)
+                dataBuffer.push(direct);
+        } else {
+            dataBuffer.push(b, 0, len);
+            parseMessages(dataBuffer);
+        }
+    }
 
+    private void parseMessages(ByteQueue buffer) {
         // There may be multiple messages in the data, so enter a loop.
         while (true) {
             // Attempt to parse a message.
             try {
                 // Mark where we are in the buffer. The entire message may not be in yet, but since the parser
                 // will consume the buffer we need to be able to backtrack.
-                dataBuffer.mark();
+                buffer.mark();
 
-                IncomingMessage message = messageParser.parseMessage(dataBuffer);
+                IncomingMessage message = messageParser.parseMessage(buffer);
 
                 if (message == null) {
                     // Nothing to do. Reset the buffer and exit the loop.
-                    dataBuffer.reset();
+                    buffer.reset();
                     break;
                 }
 
@@ -337,13 +562,110 @@ public class MessageControl implements DataConsumer {
         }
     }
 
-    private void write(byte[] data) throws IOException {
-        if (ioLog != null) {
-            ioLog.output(data);
+    private void write(OutgoingMessage message) throws IOException {
+        if (coalesceWrites) {
+            writeCoalesced(message);
+            return;
         }
 
         synchronized (transport) {
-            transport.write(data);
+            writeBuffer.clear();
+            message.writeMessageData(writeBuffer);
+
+            int length = writeBuffer.size();
+            if (writeBytes.length < length) {
+                writeBytes = new byte[Math.max(length, writeBytes.length * 2)];
+            }
+            writeBuffer.pop(writeBytes, 0, length);
+
+            if (ioLog != null) {
+                ioLog.output(writeBytes, 0, length);
+            }
+
+            transport.write(writeBytes, length);
+        }
+    }
+
+    private void writeCoalesced(OutgoingMessage message) throws IOException {
+        Batch batch;
+        synchronized (writeLock) {
+            message.writeMessageData(writeBuffer);
+            batch = openBatch;
+
+            if (writing) {
+                // Another thread is writing. It will pick up this frame with the rest of the open batch.
+                while (!batch.done) {
+                    try {
+                        writeLock.wait();
+                    } catch (InterruptedException e) {
+                        // no op
+                    }
+                }
+                if (batch.failure != null)
+                    throw new IOException("Coalesced write failed", batch.failure);
+                return;
+            }
+            writing = true;
+        }
+
+        // Write batches until no more frames are queued.
+        while (true) {
+            int length;
+            Batch writeBatch;
+            synchronized (writeLock) {
+                length = writeBuffer.size();
+                if (writeBytes.length < length) {
+                    writeBytes = new byte[Math.max(length, writeBytes.length * 2)];
+                }
+                writeBuffer.pop(writeBytes, 0, length);
+                writeBatch = openBatch;
+                openBatch = new Batch();
+            }
+
+            try {
+                synchronized (transport) {
+                    if (ioLog != null) {
+                        ioLog.output(writeBytes, 0, length);
+                    }
+                    transport.write(writeBytes, length);
+                }
+            } catch (IOException e) {
+                synchronized (writeLock) {
+                    // Fail this batch and any frames queued behind it, since the connection is now unusable.
+                    writeBuffer.clear();
+                    writeBatch.finish(e);
+                    openBatch.finish(e);
+                    openBatch = new Batch();
+                    writing = false;
+                    writeLock.notifyAll();
+                }
+                if (writeBatch == batch)
+                    throw e;
+                return;
+            }
+
+            synchronized (writeLock) {
+                writeBatch.finish(null);
+                writeLock.notifyAll();
+                if (writeBuffer.size() == 0) {
+                    writing = false;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The frames that are written to the transport together. Each waiter keeps a reference to its own batch, so that
+     * the outcome of one write cannot be confused with that of another. Only accessed on writeLock.
+     */
+    private static class Batch {
+        boolean done;
+        IOException failure;
+
+        void finish(IOException failure) {
+            this.failure = failure;
+            done = true;
         }
     }
 
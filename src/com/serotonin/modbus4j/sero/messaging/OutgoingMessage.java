@@ -1,5 +1,7 @@
 package com.serotonin.modbus4j.sero.messaging;
 
+import com.serotonin.modbus4j.sero.util.queue.ByteQueue;
+
 /**
  * <p>OutgoingMessage interface.</p>
  *
@@ -13,4 +15,14 @@ public interface OutgoingMessage {
      * @return byte array representing the serialization of the request
      */
     byte[] getMessageData();
+
+    /**
+     * Appends the serialization of the message to the given queue. Messages that can write themselves directly should
+     * override this so that senders can reuse a single queue rather than allocating a new array for every message.
+     *
+     * @param queue the queue to write to
+     */
+    default void writeMessageData(ByteQueue queue) {
+        queue.push(getMessageData());
+    }
 }
@@ -3,6 +3,7 @@ package com.serotonin.modbus4j.sero.messaging;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.concurrent.ThreadFactory;
 
 /**
  * First, instatiate with the streams. Then add a data consumer, or create a message control and pass this as the
@@ -18,6 +19,8 @@ public class StreamTransport implements Transport, Runnable {
     protected OutputStream out;
     protected InputStream in;
     private InputStreamListener listener;
+    private boolean blockingRead;
+    private ThreadFactory threadFactory;
 
     /**
      * <p>Constructor for StreamTransport.</p>
@@ -40,13 +43,36 @@ public class StreamTransport implements Transport, Runnable {
             listener.setReadDelay(readDelay);
     }
 
+    /**
+     * Selects the blocking read mode of the input stream listener. See
+     * {@link com.serotonin.modbus4j.sero.messaging.InputStreamListener#setBlockingRead(boolean)}. Must be set before
+     * the transport is started.
+     *
+     * @param blockingRead a boolean.
+     */
+    public void setBlockingRead(boolean blockingRead) {
+        this.blockingRead = blockingRead;
+        if (listener != null)
+            listener.setBlockingRead(blockingRead);
+    }
+
+    /**
+     * Sets the factory of the thread that {@link #start(String)} creates for the listener. Null, the default, creates a
+     * platform thread.
+     *
+     * @param threadFactory a {@link java.util.concurrent.ThreadFactory} object.
+     */
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+    }
+
     /**
      * <p>start.</p>
      *
      * @param threadName a {@link java.lang.String} object.
      */
     public void start(String threadName) {
-        listener.start(threadName);
+        listener.start(threadName, threadFactory);
     }
 
     /**
@@ -66,6 +92,7 @@ public class StreamTransport implements Transport, Runnable {
     /** {@inheritDoc} */
     public void setConsumer(DataConsumer consumer) {
         listener = new InputStreamListener(in, consumer);
+        listener.setBlockingRead(blockingRead);
     }
 
     /**
@@ -32,7 +32,8 @@ public interface Transport {
     abstract void write(byte[] data) throws IOException;
 
     /**
-     * <p>write.</p>
+     * Writes the first len bytes of the array. Callers may reuse the array once this method returns, so
+     * implementations must not hold on to it.
      *
      * @param data an array of {@link byte} objects.
      * @param len a int.
@@ -2,6 +2,11 @@ package com.serotonin.modbus4j.sero.messaging;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -9,12 +14,26 @@ import org.apache.commons.logging.LogFactory;
 /**
  * The waiting room is a place for request messages to hang out while awaiting their responses.
  * 
+ * Keys that carry a transaction id are kept in a fixed array of slots indexed by that id, which is entered, searched
+ * and left with compare-and-set operations only. Other keys are kept in a synchronized map.
+ * 
  * @author Matthew Lohbihler
  */
 class WaitingRoom {
     private static final Log LOG = LogFactory.getLog(WaitingRoom.class);
 
+    /**
+     * The number of transaction slots. Transaction ids are allocated sequentially, so up to this many requests can be
+     * outstanding before two of them compete for the same slot, in which case the later one waits for it to be left.
+     */
+    static final int SLOT_COUNT = 256;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+
     private final Map<WaitingRoomKey, Member> waitHere = new HashMap<WaitingRoomKey, Member>();
+    private final AtomicReferenceArray<Member> slots = new AtomicReferenceArray<Member>(SLOT_COUNT);
+
+    // The number of threads blocked in enter() waiting for a slot. Only changed while holding the monitor.
+    private volatile int slotWaiters;
 
     private WaitingRoomKeyFactory keyFactory;
 
@@ -29,7 +48,13 @@ class WaitingRoom {
      * @return
      */
     void enter(WaitingRoomKey key) {
-        Member member = new Member();
+        Member member = new Member(key);
+        int slot = slotIndex(key);
+        if (slot != -1) {
+            enterSlot(slot, member);
+            return;
+        }
+
         synchronized (this) {
             while (waitHere.get(key) != null) {
                 if (LOG.isDebugEnabled())
@@ -51,12 +76,36 @@ class WaitingRoom {
         }
     }
 
-    IncomingResponseMessage getResponse(WaitingRoomKey key, long timeout) throws WaitingRoomException {
-        // Get the member.
-        Member member;
+    /**
+     * Asynchronous counterpart of enter. Rather than blocking while a member with the same key is present, the
+     * returned future is failed immediately. The future is completed with the response when it arrives; the caller
+     * is responsible for leaving the waiting room once it is done with the key.
+     * 
+     * @return the future that will receive the response
+     * @throws WaitingRoomException
+     *             if a member with the same key is already waiting
+     */
+    CompletableFuture<IncomingResponseMessage> enterAsync(WaitingRoomKey key) throws WaitingRoomException {
+        AsyncMember member = new AsyncMember(key);
+        int slot = slotIndex(key);
+        if (slot != -1) {
+            if (!slots.compareAndSet(slot, null, member))
+                throw new WaitingRoomException("Waiting room too crowded. Already contains the key " + slots.get(slot)
+                        + " in the slot for key " + key);
+            return member.future;
+        }
+
         synchronized (this) {
-            member = waitHere.get(key);
+            if (waitHere.get(key) != null)
+                throw new WaitingRoomException("Waiting room too crowded. Already contains the key " + key);
+            waitHere.put(key, member);
         }
+        return member.future;
+    }
+
+    IncomingResponseMessage getResponse(WaitingRoomKey key, long timeout) throws WaitingRoomException {
+        // Get the member.
+        Member member = getMember(key);
 
         if (member == null)
             throw new WaitingRoomException("No member for key " + key);
@@ -66,6 +115,20 @@ class WaitingRoom {
     }
 
     void leave(WaitingRoomKey key) {
+        int slot = slotIndex(key);
+        if (slot != -1) {
+            Member member = slots.get(slot);
+            if (member != null && member.key.equals(key) && slots.compareAndSet(slot, member, null)) {
+                // Only take the monitor if someone is actually waiting for a slot.
+                if (slotWaiters > 0) {
+                    synchronized (this) {
+                        notifyAll();
+                    }
+                }
+            }
+            return;
+        }
+
         // Leave the waiting room
         synchronized (this) {
             waitHere.remove(key);
@@ -88,11 +151,7 @@ class WaitingRoom {
             // The key factory can return a null key if the response should be ignored. 
             return;
 
-        Member member;
-
-        synchronized (this) {
-            member = waitHere.get(key);
-        }
+        Member member = getMember(key);
 
         if (member != null)
             member.setResponse(response);
@@ -100,39 +159,139 @@ class WaitingRoom {
             throw new WaitingRoomException("No recipient was found waiting for response for key " + key);
     }
 
+    //
+    //
+    // Private methods
+    //
+    private static int slotIndex(WaitingRoomKey key) {
+        int slot = key.getTransactionSlot();
+        if (slot < 0)
+            return -1;
+        return slot & SLOT_MASK;
+    }
+
+    private Member getMember(WaitingRoomKey key) {
+        int slot = slotIndex(key);
+        if (slot != -1) {
+            Member member = slots.get(slot);
+            if (member != null && member.key.equals(key))
+                return member;
+            return null;
+        }
+
+        synchronized (this) {
+            return waitHere.get(key);
+        }
+    }
+
+    private void enterSlot(int slot, Member member) {
+        if (slots.compareAndSet(slot, null, member))
+            return;
+
+        // The slot is taken, either by a duplicate key or by a key whose transaction id is SLOT_COUNT apart. Wait for
+        // it to be left. The waiter count is raised before the slot is checked again so that a leaving thread will
+        // see it and notify.
+        if (LOG.isDebugEnabled())
+            LOG.debug("Waiting room slot for key " + member.key + " is in use. Waiting for member to leave.");
+        synchronized (this) {
+            slotWaiters++;
+            try {
+                while (!slots.compareAndSet(slot, null, member)) {
+                    try {
+                        wait();
+                    }
+                    catch (InterruptedException e) {
+                        // no op
+                    }
+                }
+            }
+            finally {
+                slotWaiters--;
+            }
+        }
+    }
+
     /**
      * This class is used by network message controllers to manage the blocking of threads sending confirmed messages.
-     * The instance itself serves as a monitor upon which the sending thread can wait (with a timeout). When a response
-     * is received, the message controller can set it in here, automatically notifying the sending thread that the
-     * response is available.
+     * The first response that is set completes the member and unparks the sending thread, if it is already waiting.
+     * Neither side takes a lock.
      * 
      * @author Matthew Lohbihler
      */
-    class Member {
-        private IncomingResponseMessage response;
+    static class Member {
+        private static final AtomicReferenceFieldUpdater<Member, IncomingResponseMessage> RESPONSE = AtomicReferenceFieldUpdater
+                .newUpdater(Member.class, IncomingResponseMessage.class, "response");
 
-        synchronized void setResponse(IncomingResponseMessage response) {
-            this.response = response;
-            notify();
+        final WaitingRoomKey key;
+        private volatile IncomingResponseMessage response;
+        private volatile Thread waiter;
+
+        Member(WaitingRoomKey key) {
+            this.key = key;
         }
 
-        synchronized IncomingResponseMessage getResponse(long timeout) {
-            // Check if there is a response object now.
-            if (response != null)
-                return response;
+        /**
+         * @return true if this was the first response, i.e. the one that completed the member.
+         */
+        boolean setResponse(IncomingResponseMessage response) {
+            if (!RESPONSE.compareAndSet(this, null, response))
+                return false;
 
-            // If not, wait the timeout and then check again.
-            waitNoThrow(timeout);
-            return response;
+            Thread t = waiter;
+            if (t != null)
+                LockSupport.unpark(t);
+            return true;
         }
 
-        private void waitNoThrow(long timeout) {
+        IncomingResponseMessage getResponse(long timeout) {
+            // Check if there is a response object now.
+            IncomingResponseMessage result = response;
+            if (result != null)
+                return result;
+
+            // If not, park until it is set or the timeout expires. The waiter is published before the response is
+            // checked again, so a response that is set concurrently is either seen here or unparks this thread.
+            // As with wait(), a timeout of 0 waits indefinitely.
+            waiter = Thread.currentThread();
             try {
-                wait(timeout);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+                while ((result = response) == null) {
+                    if (timeout == 0)
+                        LockSupport.park(this);
+                    else {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0)
+                            break;
+                        LockSupport.parkNanos(this, remaining);
+                    }
+                    if (Thread.interrupted())
+                        // As with the wait() this replaced, an interrupt ends the wait early without a response.
+                        return response;
+                }
+                return result;
             }
-            catch (InterruptedException e) {
-                // Ignore
+            finally {
+                waiter = null;
             }
         }
     }
+
+    /**
+     * A member that does not block a thread, but instead completes a future when its response arrives.
+     */
+    static class AsyncMember extends Member {
+        final CompletableFuture<IncomingResponseMessage> future = new CompletableFuture<IncomingResponseMessage>();
+
+        AsyncMember(WaitingRoomKey key) {
+            super(key);
+        }
+
+        @Override
+        boolean setResponse(IncomingResponseMessage response) {
+            if (!super.setResponse(response))
+                return false;
+            future.complete(response);
+            return true;
+        }
+    }
 }
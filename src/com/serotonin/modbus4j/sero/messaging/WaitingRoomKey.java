@@ -9,4 +9,14 @@ package com.serotonin.modbus4j.sero.messaging;
  */
 public interface WaitingRoomKey {
     // Implementation needs to have hashcode and equals implementations.
+
+    /**
+     * Keys that carry a transaction id can return it here so that the waiting room can find their members by index
+     * rather than through a shared map. Keys that are outstanding at the same time should return different values.
+     *
+     * @return a non-negative transaction id, or -1 if the key has none.
+     */
+    default int getTransactionSlot() {
+        return -1;
+    }
 }
@@ -0,0 +1,74 @@
+package com.serotonin.modbus4j.sero.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>ThreadFactories class.</p>
+ *
+ * Thread factories for use with {@link com.serotonin.modbus4j.Modbus#setThreadFactory(ThreadFactory)}. The library is
+ * built for Java 8, so virtual threads are created through reflection and are only available when running on a JDK
+ * that supports them (21 or later).
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+public class ThreadFactories {
+    /**
+     * <p>isVirtualThreadSupported.</p>
+     *
+     * @return true if the running JDK can create virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        try {
+            createVirtualThreadFactory("Modbus4J virtual probe-");
+            return true;
+        }
+        catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates a factory of virtual threads, which are cheap enough to give every blocking connection its own thread
+     * even when there are tens of thousands of them. Threads are named with the prefix followed by a counter.
+     *
+     * @param namePrefix a {@link java.lang.String} object.
+     * @return a {@link java.util.concurrent.ThreadFactory} object.
+     * @throws java.lang.UnsupportedOperationException if the running JDK does not support virtual threads.
+     */
+    public static ThreadFactory createVirtualThreadFactory(String namePrefix) {
+        try {
+            // Thread.ofVirtual().name(namePrefix, 0).factory()
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        }
+        catch (InvocationTargetException e) {
+            // Thrown by JDKs that only have virtual threads as a preview feature that has not been enabled.
+            throw new UnsupportedOperationException("Virtual threads are not enabled", e.getCause());
+        }
+        catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or later", e);
+        }
+    }
+
+    /**
+     * <p>createThread.</p>
+     *
+     * @param threadFactory the factory to use, or null to create a plain platform thread.
+     * @param runnable a {@link java.lang.Runnable} object.
+     * @param name a {@link java.lang.String} object.
+     * @return a new, unstarted thread.
+     */
+    public static Thread createThread(ThreadFactory threadFactory, Runnable runnable, String name) {
+        if (threadFactory == null)
+            return new Thread(runnable, name);
+
+        Thread thread = threadFactory.newThread(runnable);
+        thread.setName(name);
+        return thread;
+    }
+}
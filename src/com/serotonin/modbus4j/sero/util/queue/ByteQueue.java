@@ -88,6 +88,29 @@ public class ByteQueue implements Cloneable {
         push(b, pos, length);
     }
 
+    /**
+     * Creates a queue that reads directly from the given range of the array rather than from a copy of it. Pushing to
+     * the queue writes into the array, so callers that do not own the array should only consume from it.
+     *
+     * @param b an array of {@link byte} objects.
+     * @param pos a int.
+     * @param length a int.
+     * @return a {@link com.serotonin.modbus4j.sero.util.queue.ByteQueue} object.
+     */
+    public static ByteQueue wrap(byte[] b, int pos, int length) {
+        if (pos < 0 || length < 0 || pos + length > b.length)
+            throw new IndexOutOfBoundsException("pos=" + pos + ", length=" + length + ", array length=" + b.length);
+
+        ByteQueue queue = new ByteQueue(0);
+        queue.queue = b;
+        if (length > 0) {
+            queue.head = pos;
+            queue.tail = (pos + length) % b.length;
+            queue.size = length;
+        }
+        return queue;
+    }
+
     /**
      * <p>Constructor for ByteQueue.</p>
      *
@@ -649,6 +672,21 @@ public class ByteQueue implements Cloneable {
         return queue[index];
     }
 
+    /**
+     * Overwrites the byte at the given index, counted from the head of the queue. Useful for filling in header fields,
+     * such as lengths, after the rest of a message has been pushed.
+     *
+     * @param index a int.
+     * @param b a byte.
+     */
+    public void set(int index, byte b) {
+        if (index >= size)
+            throw new IllegalArgumentException("index " + index + " is >= queue size " + size);
+
+        index = (index + head) % queue.length;
+        queue[index] = b;
+    }
+
     /**
      * <p>peek.</p>
      *
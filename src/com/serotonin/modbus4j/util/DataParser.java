@@ -3,7 +3,6 @@ package com.serotonin.modbus4j.util;
 import com.serotonin.modbus4j.code.DataType;
 import com.serotonin.modbus4j.code.RegisterRange;
 
-import java.math.BigInteger;
 import java.nio.charset.Charset;
 
 /**
@@ -53,157 +52,31 @@ public class DataParser {
     }
 
     public static Number bytesToNumber(byte[] data, int offset, int dataType) {
-        offset *= 2;
+        return NumericDecoder.forDataType(dataType).decode(data, offset);
+    }
 
-        switch (dataType) {
-            // 2 bytes
-            case DataType.TWO_BYTE_INT_UNSIGNED:
-                return ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
-            case DataType.TWO_BYTE_INT_SIGNED:
-                return (short) (((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff));
-            case DataType.TWO_BYTE_INT_UNSIGNED_SWAPPED:
-                return ((data[offset + 1] & 0xff) << 8) | (data[offset] & 0xff);
-            case DataType.TWO_BYTE_INT_SIGNED_SWAPPED:
-                return (short) (((data[offset + 1] & 0xff) << 8) | (data[offset] & 0xff));
-            case DataType.TWO_BYTE_BCD:
-                StringBuilder sb = new StringBuilder();
-                appendBcd(sb, data[offset]);
-                appendBcd(sb, data[offset + 1]);
-                return Short.parseShort(sb.toString());
-            // 1 byte
-            case DataType.ONE_BYTE_INT_UNSIGNED_LOWER:
-                return data[offset + 1] & 0xff;
-            case DataType.ONE_BYTE_INT_UNSIGNED_UPPER:
-                return data[offset] & 0xff;
-            // 4 bytes
-            case DataType.FOUR_BYTE_INT_UNSIGNED:
-                return ((long) (data[offset] & 0xff) << 24) | ((long) (data[offset + 1] & 0xff) << 16)
-                        | ((long) (data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
-            case DataType.FOUR_BYTE_INT_SIGNED:
-                return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16)
-                        | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
-            case DataType.FOUR_BYTE_INT_UNSIGNED_SWAPPED:
-                return ((long) (data[offset + 2] & 0xff) << 24) | ((long) (data[offset + 3] & 0xff) << 16)
-                        | ((long) (data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
-            case DataType.FOUR_BYTE_INT_SIGNED_SWAPPED:
-                return ((data[offset + 2] & 0xff) << 24) | ((data[offset + 3] & 0xff) << 16)
-                        | ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
-            case DataType.FOUR_BYTE_INT_UNSIGNED_SWAPPED_SWAPPED:
-                return ((long) (data[offset + 3] & 0xff) << 24) | ((data[offset + 2] & 0xff) << 16)
-                        | ((long) (data[offset + 1] & 0xff) << 8) | (data[offset] & 0xff);
-            case DataType.FOUR_BYTE_INT_SIGNED_SWAPPED_SWAPPED:
-                return ((data[offset + 3] & 0xff) << 24) | ((data[offset + 2] & 0xff) << 16)
-                        | ((data[offset + 1] & 0xff) << 8) | (data[offset] & 0xff);
-            case DataType.FOUR_BYTE_FLOAT:
-                return Float.intBitsToFloat(((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16)
-                        | ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff));
-            case DataType.FOUR_BYTE_FLOAT_SWAPPED:
-                return Float.intBitsToFloat(((data[offset + 2] & 0xff) << 24) | ((data[offset + 3] & 0xff) << 16)
-                        | ((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff));
-            case DataType.FOUR_BYTE_BCD:
-                StringBuilder sb1 = new StringBuilder();
-                appendBcd(sb1, data[offset]);
-                appendBcd(sb1, data[offset + 1]);
-                appendBcd(sb1, data[offset + 2]);
-                appendBcd(sb1, data[offset + 3]);
-                return Integer.parseInt(sb1.toString());
-            case DataType.FOUR_BYTE_BCD_SWAPPED:
-                StringBuilder sb2 = new StringBuilder();
-                appendBcd(sb2, data[offset + 2]);
-                appendBcd(sb2, data[offset + 3]);
-                appendBcd(sb2, data[offset]);
-                appendBcd(sb2, data[offset + 1]);
-                return Integer.parseInt(sb2.toString());
-            //MOD10K types
-            case DataType.FOUR_BYTE_MOD_10K_SWAPPED:
-                return BigInteger.valueOf((((data[offset + 2] & 0xff) << 8) + (data[offset + 3] & 0xff))).multiply(BigInteger.valueOf(10000L))
-                        .add(BigInteger.valueOf((((data[offset] & 0xff) << 8) + (data[offset + 1] & 0xff))));
-            case DataType.FOUR_BYTE_MOD_10K:
-                return BigInteger.valueOf((((data[offset] & 0xff) << 8) + (data[offset + 1] & 0xff))).multiply(BigInteger.valueOf(10000L))
-                        .add(BigInteger.valueOf((((data[offset + 2] & 0xff) << 8) + (data[offset + 3] & 0xff))));
-            case DataType.SIX_BYTE_MOD_10K_SWAPPED:
-                return BigInteger.valueOf((((data[offset + 4] & 0xff) << 8) + (data[offset + 5] & 0xff))).multiply(BigInteger.valueOf(100000000L))
-                        .add(BigInteger.valueOf((((data[offset + 2] & 0xff) << 8) + (data[offset + 3] & 0xff))).multiply(BigInteger.valueOf(10000L)))
-                        .add(BigInteger.valueOf((((data[offset] & 0xff) << 8) + (data[offset + 1] & 0xff))));
-            case DataType.SIX_BYTE_MOD_10K:
-                return BigInteger.valueOf((((data[offset] & 0xff) << 8) + (data[offset + 1] & 0xff))).multiply(BigInteger.valueOf(100000000L))
-                        .add(BigInteger.valueOf((((data[offset + 2] & 0xff) << 8) + (data[offset + 3] & 0xff))).multiply(BigInteger.valueOf(10000L)))
-                        .add(BigInteger.valueOf((((data[offset + 4] & 0xff) << 8) + (data[offset + 5] & 0xff))));
-            case DataType.EIGHT_BYTE_MOD_10K_SWAPPED:
-                return BigInteger.valueOf((((data[offset + 6] & 0xff) << 8) + (data[offset + 7] & 0xff))).multiply(BigInteger.valueOf(1000000000000L))
-                        .add(BigInteger.valueOf((((data[offset + 4] & 0xff) << 8) + (data[offset + 5] & 0xff))).multiply(BigInteger.valueOf(100000000L)))
-                        .add(BigInteger.valueOf((((data[offset + 2] & 0xff) << 8) + (data[offset + 3] & 0xff))).multiply(BigInteger.valueOf(10000L)))
-                        .add(BigInteger.valueOf((((data[offset] & 0xff) << 8) + (data[offset + 1] & 0xff))));
-            case DataType.EIGHT_BYTE_MOD_10K:
-                return BigInteger.valueOf((((data[offset] & 0xff) << 8) + (data[offset + 1] & 0xff))).multiply(BigInteger.valueOf(1000000000000L))
-                        .add(BigInteger.valueOf((((data[offset + 2] & 0xff) << 8) + (data[offset + 3] & 0xff))).multiply(BigInteger.valueOf(100000000L)))
-                        .add(BigInteger.valueOf((((data[offset + 4] & 0xff) << 8) + (data[offset + 5] & 0xff))).multiply(BigInteger.valueOf(10000L)))
-                        .add(BigInteger.valueOf((((data[offset + 6] & 0xff) << 8) + (data[offset + 7] & 0xff))));
-            // 8 bytes
-            case DataType.EIGHT_BYTE_INT_UNSIGNED:
-                byte[] b9 = new byte[9];
-                System.arraycopy(data, offset, b9, 1, 8);
-                return new BigInteger(b9);
-            case DataType.EIGHT_BYTE_INT_SIGNED:
-                return ((long) (data[offset] & 0xff) << 56) | ((long) (data[offset + 1] & 0xff) << 48)
-                        | ((long) (data[offset + 2] & 0xff) << 40) | ((long) (data[offset + 3] & 0xff) << 32)
-                        | ((long) (data[offset + 4] & 0xff) << 24) | ((long) (data[offset + 5] & 0xff) << 16)
-                        | ((long) (data[offset + 6] & 0xff) << 8) | (data[offset + 7] & 0xff);
-            case DataType.EIGHT_BYTE_INT_UNSIGNED_SWAPPED:
-                byte[] b9a = new byte[9];
-                b9a[1] = data[offset + 6];
-                b9a[2] = data[offset + 7];
-                b9a[3] = data[offset + 4];
-                b9a[4] = data[offset + 5];
-                b9a[5] = data[offset + 2];
-                b9a[6] = data[offset + 3];
-                b9a[7] = data[offset];
-                b9a[8] = data[offset + 1];
-                return new BigInteger(b9a);
-
-
-            case DataType.EIGHT_BYTE_INT_SIGNED_SWAPPED:
-                return ((long) (data[offset + 6] & 0xff) << 56) | ((long) (data[offset + 7] & 0xff) << 48)
-                        | ((long) (data[offset + 4] & 0xff) << 40) | ((long) (data[offset + 5] & 0xff) << 32)
-                        | ((long) (data[offset + 2] & 0xff) << 24) | ((long) (data[offset + 3] & 0xff) << 16)
-                        | ((long) (data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff);
-
-
-            case DataType.EIGHT_BYTE_FLOAT:
-                return Double.longBitsToDouble(((long) (data[offset] & 0xff) << 56)
-                        | ((long) (data[offset + 1] & 0xff) << 48) | ((long) (data[offset + 2] & 0xff) << 40)
-                        | ((long) (data[offset + 3] & 0xff) << 32) | ((long) (data[offset + 4] & 0xff) << 24)
-                        | ((long) (data[offset + 5] & 0xff) << 16) | ((long) (data[offset + 6] & 0xff) << 8)
-                        | (data[offset + 7] & 0xff));
-
-
-            case DataType.EIGHT_BYTE_FLOAT_SWAPPED:
-                return Double.longBitsToDouble(((long) (data[offset + 6] & 0xff) << 56)
-                        | ((long) (data[offset + 7] & 0xff) << 48) | ((long) (data[offset + 4] & 0xff) << 40)
-                        | ((long) (data[offset + 5] & 0xff) << 32) | ((long) (data[offset + 2] & 0xff) << 24)
-                        | ((long) (data[offset + 3] & 0xff) << 16) | ((long) (data[offset] & 0xff) << 8)
-                        | (data[offset + 1] & 0xff));
-            default:
-                throw new IllegalArgumentException("Unsupported data type: " + dataType);
-        }
+    public static int[] bytesToInts(byte[] data, int offset, int count, int dataType) {
+        int[] values = new int[count];
+        NumericDecoder.forDataType(dataType).decodeInts(data, offset, values, 0, count);
+        return values;
     }
 
-    private static void appendBcd(StringBuilder sb, byte b) {
-        sb.append(bcdNibbleToInt(b, true));
-        sb.append(bcdNibbleToInt(b, false));
+    public static long[] bytesToLongs(byte[] data, int offset, int count, int dataType) {
+        long[] values = new long[count];
+        NumericDecoder.forDataType(dataType).decodeLongs(data, offset, values, 0, count);
+        return values;
     }
 
-    private static int bcdNibbleToInt(byte b, boolean high) {
-        int n;
-        if (high) {
-            n = (b >> 4) & 0xf;
-        } else {
-            n = b & 0xf;
-        }
-        if (n > 9) {
-            n = 0;
-        }
-        return n;
+    public static float[] bytesToFloats(byte[] data, int offset, int count, int dataType) {
+        float[] values = new float[count];
+        NumericDecoder.forDataType(dataType).decodeFloats(data, offset, values, 0, count);
+        return values;
+    }
+
+    public static double[] bytesToDoubles(byte[] data, int offset, int count, int dataType) {
+        double[] values = new double[count];
+        NumericDecoder.forDataType(dataType).decodeDoubles(data, offset, values, 0, count);
+        return values;
     }
 
 }
@@ -0,0 +1,715 @@
+/*
+ * ============================================================================
+ * GNU General Public License
+ * ============================================================================
+ *
+ * Copyright (C) 2006-2011 Serotonin Software Technologies Inc. http://serotoninsoftware.com
+ * @author Matthew Lohbihler
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.serotonin.modbus4j.util;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.serotonin.modbus4j.code.DataType;
+
+/**
+ * <p>NumericDecoder class.</p>
+ *
+ * Decodes the registers of a single numeric data type. The decoder of each type is created once, and is found with
+ * {@link #forDataType(int)} by a table lookup, so that a locator can resolve its decoder when it is built rather than
+ * dispatching on the data type each time a value is decoded.
+ *
+ * Besides {@link #decode(byte[], int)}, which returns the same boxed types as
+ * {@link DataParser#bytesToNumber(byte[], int, int)}, each decoder has primitive methods that create no objects.
+ * decodeLong is exact for all integer types except 8 byte unsigned values of 2^63 and above, which wrap. decodeInt
+ * returns the low 32 bits of decodeLong, and decodeDouble is exact for the float types and as close as a double
+ * can be for the others. Float types are truncated towards zero by decodeInt and decodeLong.
+ *
+ * The bulk methods, such as {@link #decodeInts(byte[], int, int[], int, int)}, decode a run of consecutive values of
+ * the type, such as the payload of a read of an array of values. The common types read them through
+ * {@link java.nio.ByteBuffer} views of the data, whose byte order conversions the JIT compiles to plain loads, rather
+ * than assembling each value from single bytes.
+ *
+ * As with DataParser, offsets are in registers.
+ *
+ * @author Matthew Lohbihler
+ * @version 5.0.0
+ */
+abstract public class NumericDecoder {
+    private static final BigInteger TWO_POW_64 = BigInteger.ONE.shiftLeft(64);
+    private static final NumericDecoder[] DECODERS = new NumericDecoder[DataType.ONE_BYTE_INT_UNSIGNED_UPPER + 1];
+
+    private int registerCount;
+
+    static {
+        // 2 bytes
+        register(DataType.TWO_BYTE_INT_UNSIGNED, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return u16(data, offset * 2);
+            }
+
+            @Override
+            public void decodeInts(byte[] data, int offset, int[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = buffer.getChar(i * 2);
+            }
+        });
+        register(DataType.TWO_BYTE_INT_SIGNED, new ShortDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return (short) u16(data, offset * 2);
+            }
+
+            @Override
+            public void decodeInts(byte[] data, int offset, int[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = buffer.getShort(i * 2);
+            }
+        });
+        register(DataType.TWO_BYTE_INT_UNSIGNED_SWAPPED, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return u16Swapped(data, offset * 2);
+            }
+
+            @Override
+            public void decodeInts(byte[] data, int offset, int[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = buffer.getChar(i * 2);
+            }
+        });
+        register(DataType.TWO_BYTE_INT_SIGNED_SWAPPED, new ShortDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return (short) u16Swapped(data, offset * 2);
+            }
+
+            @Override
+            public void decodeInts(byte[] data, int offset, int[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = buffer.getShort(i * 2);
+            }
+        });
+        register(DataType.TWO_BYTE_BCD, new ShortDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                offset *= 2;
+                return bcd(data[offset]) * 100 + bcd(data[offset + 1]);
+            }
+        });
+
+        // 1 byte
+        register(DataType.ONE_BYTE_INT_UNSIGNED_LOWER, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return data[offset * 2 + 1] & 0xff;
+            }
+        });
+        register(DataType.ONE_BYTE_INT_UNSIGNED_UPPER, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return data[offset * 2] & 0xff;
+            }
+        });
+
+        // 4 bytes
+        register(DataType.FOUR_BYTE_INT_UNSIGNED, new LongDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                return i32(data, offset * 2) & 0xffffffffL;
+            }
+
+            @Override
+            public void decodeLongs(byte[] data, int offset, long[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = buffer.getInt(i * 4) & 0xffffffffL;
+            }
+        });
+        register(DataType.FOUR_BYTE_INT_SIGNED, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return i32(data, offset * 2);
+            }
+
+            @Override
+            public void decodeInts(byte[] data, int offset, int[] dest, int destOffset, int count) {
+                view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN).asIntBuffer().get(dest, destOffset, count);
+            }
+        });
+        register(DataType.FOUR_BYTE_INT_UNSIGNED_SWAPPED, new LongDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                return i32Swapped(data, offset * 2) & 0xffffffffL;
+            }
+
+            @Override
+            public void decodeLongs(byte[] data, int offset, long[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = Integer.rotateLeft(buffer.getInt(i * 4), 16) & 0xffffffffL;
+            }
+        });
+        register(DataType.FOUR_BYTE_INT_SIGNED_SWAPPED, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return i32Swapped(data, offset * 2);
+            }
+
+            @Override
+            public void decodeInts(byte[] data, int offset, int[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = Integer.rotateLeft(buffer.getInt(i * 4), 16);
+            }
+        });
+        register(DataType.FOUR_BYTE_INT_UNSIGNED_SWAPPED_SWAPPED, new LongDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                return i32Reversed(data, offset * 2) & 0xffffffffL;
+            }
+
+            @Override
+            public void decodeLongs(byte[] data, int offset, long[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = buffer.getInt(i * 4) & 0xffffffffL;
+            }
+        });
+        register(DataType.FOUR_BYTE_INT_SIGNED_SWAPPED_SWAPPED, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                return i32Reversed(data, offset * 2);
+            }
+
+            @Override
+            public void decodeInts(byte[] data, int offset, int[] dest, int destOffset, int count) {
+                view(data, offset, count, dest.length, destOffset, ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(dest, destOffset, count);
+            }
+        });
+        register(DataType.FOUR_BYTE_FLOAT, new FloatDecoder() {
+            @Override
+            public float decodeFloat(byte[] data, int offset) {
+                return Float.intBitsToFloat(i32(data, offset * 2));
+            }
+
+            @Override
+            public void decodeFloats(byte[] data, int offset, float[] dest, int destOffset, int count) {
+                view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN).asFloatBuffer().get(dest, destOffset, count);
+            }
+        });
+        register(DataType.FOUR_BYTE_FLOAT_SWAPPED, new FloatDecoder() {
+            @Override
+            public float decodeFloat(byte[] data, int offset) {
+                return Float.intBitsToFloat(i32Swapped(data, offset * 2));
+            }
+
+            @Override
+            public void decodeFloats(byte[] data, int offset, float[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = Float.intBitsToFloat(Integer.rotateLeft(buffer.getInt(i * 4), 16));
+            }
+        });
+        register(DataType.FOUR_BYTE_BCD, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                offset *= 2;
+                return bcd(data[offset]) * 1000000 + bcd(data[offset + 1]) * 10000 + bcd(data[offset + 2]) * 100
+                        + bcd(data[offset + 3]);
+            }
+        });
+        register(DataType.FOUR_BYTE_BCD_SWAPPED, new IntDecoder() {
+            @Override
+            public int decodeInt(byte[] data, int offset) {
+                offset *= 2;
+                return bcd(data[offset + 2]) * 1000000 + bcd(data[offset + 3]) * 10000 + bcd(data[offset]) * 100
+                        + bcd(data[offset + 1]);
+            }
+        });
+
+        // MOD10K types
+        register(DataType.FOUR_BYTE_MOD_10K, new Mod10KDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                offset *= 2;
+                return u16(data, offset) * 10000L + u16(data, offset + 2);
+            }
+        });
+        register(DataType.FOUR_BYTE_MOD_10K_SWAPPED, new Mod10KDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                offset *= 2;
+                return u16(data, offset + 2) * 10000L + u16(data, offset);
+            }
+        });
+        register(DataType.SIX_BYTE_MOD_10K, new Mod10KDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                offset *= 2;
+                return u16(data, offset) * 100000000L + u16(data, offset + 2) * 10000L + u16(data, offset + 4);
+            }
+        });
+        register(DataType.SIX_BYTE_MOD_10K_SWAPPED, new Mod10KDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                offset *= 2;
+                return u16(data, offset + 4) * 100000000L + u16(data, offset + 2) * 10000L + u16(data, offset);
+            }
+        });
+        register(DataType.EIGHT_BYTE_MOD_10K, new Mod10KDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                offset *= 2;
+                return u16(data, offset) * 1000000000000L + u16(data, offset + 2) * 100000000L
+                        + u16(data, offset + 4) * 10000L + u16(data, offset + 6);
+            }
+        });
+        register(DataType.EIGHT_BYTE_MOD_10K_SWAPPED, new Mod10KDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                offset *= 2;
+                return u16(data, offset + 6) * 1000000000000L + u16(data, offset + 4) * 100000000L
+                        + u16(data, offset + 2) * 10000L + u16(data, offset);
+            }
+        });
+
+        // 8 bytes
+        register(DataType.EIGHT_BYTE_INT_UNSIGNED, new UnsignedLongDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                return i64(data, offset * 2);
+            }
+
+            @Override
+            public void decodeLongs(byte[] data, int offset, long[] dest, int destOffset, int count) {
+                view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN).asLongBuffer().get(dest, destOffset, count);
+            }
+        });
+        register(DataType.EIGHT_BYTE_INT_SIGNED, new LongDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                return i64(data, offset * 2);
+            }
+
+            @Override
+            public void decodeLongs(byte[] data, int offset, long[] dest, int destOffset, int count) {
+                view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN).asLongBuffer().get(dest, destOffset, count);
+            }
+        });
+        register(DataType.EIGHT_BYTE_INT_UNSIGNED_SWAPPED, new UnsignedLongDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                return i64Swapped(data, offset * 2);
+            }
+
+            @Override
+            public void decodeLongs(byte[] data, int offset, long[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = reverseWords(buffer.getLong(i * 8));
+            }
+        });
+        register(DataType.EIGHT_BYTE_INT_SIGNED_SWAPPED, new LongDecoder() {
+            @Override
+            public long decodeLong(byte[] data, int offset) {
+                return i64Swapped(data, offset * 2);
+            }
+
+            @Override
+            public void decodeLongs(byte[] data, int offset, long[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = reverseWords(buffer.getLong(i * 8));
+            }
+        });
+        register(DataType.EIGHT_BYTE_FLOAT, new DoubleDecoder() {
+            @Override
+            public double decodeDouble(byte[] data, int offset) {
+                return Double.longBitsToDouble(i64(data, offset * 2));
+            }
+
+            @Override
+            public void decodeDoubles(byte[] data, int offset, double[] dest, int destOffset, int count) {
+                view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN).asDoubleBuffer().get(dest, destOffset, count);
+            }
+        });
+        register(DataType.EIGHT_BYTE_FLOAT_SWAPPED, new DoubleDecoder() {
+            @Override
+            public double decodeDouble(byte[] data, int offset) {
+                return Double.longBitsToDouble(i64Swapped(data, offset * 2));
+            }
+
+            @Override
+            public void decodeDoubles(byte[] data, int offset, double[] dest, int destOffset, int count) {
+                ByteBuffer buffer = view(data, offset, count, dest.length, destOffset, ByteOrder.BIG_ENDIAN);
+                for (int i = 0; i < count; i++)
+                    dest[destOffset + i] = Double.longBitsToDouble(reverseWords(buffer.getLong(i * 8)));
+            }
+        });
+    }
+
+    /**
+     * <p>forDataType.</p>
+     *
+     * @param dataType a int.
+     * @return the decoder of the numeric data type.
+     * @throws java.lang.IllegalArgumentException if the data type is not numeric.
+     */
+    public static NumericDecoder forDataType(int dataType) {
+        NumericDecoder decoder = dataType >= 0 && dataType < DECODERS.length ? DECODERS[dataType] : null;
+        if (decoder == null)
+            throw new IllegalArgumentException("Unsupported data type: " + dataType);
+        return decoder;
+    }
+
+    /**
+     * Decodes the value as the boxed type of the data type. See {@link DataType#getJavaType(int)}.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param offset the offset of the value in the data, in registers.
+     * @return a {@link java.lang.Number} object.
+     */
+    abstract public Number decode(byte[] data, int offset);
+
+    /**
+     * <p>decodeLong.</p>
+     *
+     * @param data an array of {@link byte} objects.
+     * @param offset the offset of the value in the data, in registers.
+     * @return a long.
+     */
+    abstract public long decodeLong(byte[] data, int offset);
+
+    /**
+     * <p>decodeInt.</p>
+     *
+     * @param data an array of {@link byte} objects.
+     * @param offset the offset of the value in the data, in registers.
+     * @return a int.
+     */
+    public int decodeInt(byte[] data, int offset) {
+        return (int) decodeLong(data, offset);
+    }
+
+    /**
+     * <p>decodeDouble.</p>
+     *
+     * @param data an array of {@link byte} objects.
+     * @param offset the offset of the value in the data, in registers.
+     * @return a double.
+     */
+    public double decodeDouble(byte[] data, int offset) {
+        return longToDouble(decodeLong(data, offset));
+    }
+
+    /**
+     * Converts a value returned by {@link #decodeLong(byte[], int)} to the value that
+     * {@link #decodeDouble(byte[], int)} returns for the same data, so that a caller that needs both can decode only
+     * once. Only valid for types that are not floating point.
+     *
+     * @param value a long.
+     * @return a double.
+     */
+    public double longToDouble(long value) {
+        return value;
+    }
+
+    /**
+     * <p>isFloatingPoint.</p>
+     *
+     * @return true if the values are floats or doubles, in which case decodeLong truncates them and decodeDouble is
+     *         exact.
+     */
+    public boolean isFloatingPoint() {
+        return false;
+    }
+
+    /**
+     * <p>Getter for the field <code>registerCount</code>.</p>
+     *
+     * @return the number of registers of a value.
+     */
+    public int getRegisterCount() {
+        return registerCount;
+    }
+
+    /**
+     * Decodes count consecutive values into dest, as with {@link #decodeInt(byte[], int)}.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param offset the offset of the first value in the data, in registers.
+     * @param dest an array of {@link int} objects.
+     * @param destOffset the index in dest of the first value.
+     * @param count the number of values.
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the data or dest are too short.
+     */
+    public void decodeInts(byte[] data, int offset, int[] dest, int destOffset, int count) {
+        checkBounds(data, offset, count, dest.length, destOffset);
+        for (int i = 0; i < count; i++)
+            dest[destOffset + i] = decodeInt(data, offset + i * registerCount);
+    }
+
+    /**
+     * Decodes count consecutive values into dest, as with {@link #decodeLong(byte[], int)}.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param offset the offset of the first value in the data, in registers.
+     * @param dest an array of {@link long} objects.
+     * @param destOffset the index in dest of the first value.
+     * @param count the number of values.
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the data or dest are too short.
+     */
+    public void decodeLongs(byte[] data, int offset, long[] dest, int destOffset, int count) {
+        checkBounds(data, offset, count, dest.length, destOffset);
+        for (int i = 0; i < count; i++)
+            dest[destOffset + i] = decodeLong(data, offset + i * registerCount);
+    }
+
+    /**
+     * Decodes count consecutive values into dest. Values of types other than 4 byte floats are rounded to the
+     * nearest float.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param offset the offset of the first value in the data, in registers.
+     * @param dest an array of {@link float} objects.
+     * @param destOffset the index in dest of the first value.
+     * @param count the number of values.
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the data or dest are too short.
+     */
+    public void decodeFloats(byte[] data, int offset, float[] dest, int destOffset, int count) {
+        checkBounds(data, offset, count, dest.length, destOffset);
+        for (int i = 0; i < count; i++)
+            dest[destOffset + i] = (float) decodeDouble(data, offset + i * registerCount);
+    }
+
+    /**
+     * Decodes count consecutive values into dest, as with {@link #decodeDouble(byte[], int)}.
+     *
+     * @param data an array of {@link byte} objects.
+     * @param offset the offset of the first value in the data, in registers.
+     * @param dest an array of {@link double} objects.
+     * @param destOffset the index in dest of the first value.
+     * @param count the number of values.
+     * @throws java.lang.ArrayIndexOutOfBoundsException if the data or dest are too short.
+     */
+    public void decodeDoubles(byte[] data, int offset, double[] dest, int destOffset, int count) {
+        checkBounds(data, offset, count, dest.length, destOffset);
+        for (int i = 0; i < count; i++)
+            dest[destOffset + i] = decodeDouble(data, offset + i * registerCount);
+    }
+
+    //
+    //
+    // Private stuff
+    //
+    private static void register(int dataType, NumericDecoder decoder) {
+        decoder.registerCount = DataType.getRegisterCount(dataType);
+        DECODERS[dataType] = decoder;
+    }
+
+    final void checkBounds(byte[] data, int offset, int count, int destLength, int destOffset) {
+        // As with the single value methods, a short response surfaces as an ArrayIndexOutOfBoundsException.
+        if (offset < 0 || count < 0 || (offset + (long) count * registerCount) * 2 > data.length)
+            throw new ArrayIndexOutOfBoundsException("data too short for " + count + " values at offset " + offset);
+        if (destOffset < 0 || destOffset + count > destLength)
+            throw new ArrayIndexOutOfBoundsException("dest too short for " + count + " values at " + destOffset);
+    }
+
+    /**
+     * Checks the bounds and returns a buffer over the values' bytes in the given order, with the first value at
+     * index 0. Not private, so that the decoders of the table can call it.
+     */
+    final ByteBuffer view(byte[] data, int offset, int count, int destLength, int destOffset, ByteOrder order) {
+        checkBounds(data, offset, count, destLength, destOffset);
+        return ByteBuffer.wrap(data, offset * 2, count * registerCount * 2).slice().order(order);
+    }
+
+    /**
+     * Reverses the order of the 16 bit words of a value, keeping the order of the bytes within them.
+     */
+    private static long reverseWords(long l) {
+        l = Long.rotateLeft(l, 32);
+        return ((l >>> 16) & 0x0000ffff0000ffffL) | ((l & 0x0000ffff0000ffffL) << 16);
+    }
+
+    private static int u16(byte[] data, int b) {
+        return ((data[b] & 0xff) << 8) | (data[b + 1] & 0xff);
+    }
+
+    private static int u16Swapped(byte[] data, int b) {
+        return ((data[b + 1] & 0xff) << 8) | (data[b] & 0xff);
+    }
+
+    private static int i32(byte[] data, int b) {
+        return (u16(data, b) << 16) | u16(data, b + 2);
+    }
+
+    private static int i32Swapped(byte[] data, int b) {
+        return (u16(data, b + 2) << 16) | u16(data, b);
+    }
+
+    private static int i32Reversed(byte[] data, int b) {
+        return (u16Swapped(data, b + 2) << 16) | u16Swapped(data, b);
+    }
+
+    private static long i64(byte[] data, int b) {
+        return ((long) i32(data, b) << 32) | (i32(data, b + 4) & 0xffffffffL);
+    }
+
+    private static long i64Swapped(byte[] data, int b) {
+        return ((long) i32Swapped(data, b + 4) << 32) | (i32Swapped(data, b) & 0xffffffffL);
+    }
+
+    private static int bcd(byte b) {
+        return bcdNibble((b >> 4) & 0xf) * 10 + bcdNibble(b & 0xf);
+    }
+
+    private static int bcdNibble(int n) {
+        return n > 9 ? 0 : n;
+    }
+
+    /**
+     * Types whose values fit in an int.
+     */
+    abstract private static class IntDecoder extends NumericDecoder {
+        @Override
+        abstract public int decodeInt(byte[] data, int offset);
+
+        @Override
+        public long decodeLong(byte[] data, int offset) {
+            return decodeInt(data, offset);
+        }
+
+        @Override
+        public double decodeDouble(byte[] data, int offset) {
+            return decodeInt(data, offset);
+        }
+
+        @Override
+        public Number decode(byte[] data, int offset) {
+            return decodeInt(data, offset);
+        }
+    }
+
+    abstract private static class ShortDecoder extends IntDecoder {
+        @Override
+        public Number decode(byte[] data, int offset) {
+            return (short) decodeInt(data, offset);
+        }
+    }
+
+    abstract private static class LongDecoder extends NumericDecoder {
+        @Override
+        public Number decode(byte[] data, int offset) {
+            return decodeLong(data, offset);
+        }
+    }
+
+    abstract private static class Mod10KDecoder extends NumericDecoder {
+        @Override
+        public Number decode(byte[] data, int offset) {
+            return BigInteger.valueOf(decodeLong(data, offset));
+        }
+    }
+
+    /**
+     * 8 byte unsigned values, whose decodeLong has the raw bits of the value.
+     */
+    abstract private static class UnsignedLongDecoder extends NumericDecoder {
+        @Override
+        public double longToDouble(long l) {
+            if (l >= 0)
+                return l;
+            // Halve the value to make it positive, keeping the low bit for correct rounding.
+            return ((l >>> 1) | (l & 1)) * 2.0;
+        }
+
+        @Override
+        public Number decode(byte[] data, int offset) {
+            long l = decodeLong(data, offset);
+            BigInteger value = BigInteger.valueOf(l);
+            return l >= 0 ? value : value.add(TWO_POW_64);
+        }
+    }
+
+    abstract private static class FloatDecoder extends NumericDecoder {
+        /**
+         * <p>decodeFloat.</p>
+         *
+         * @param data an array of {@link byte} objects.
+         * @param offset the offset of the value in the data, in registers.
+         * @return a float.
+         */
+        abstract public float decodeFloat(byte[] data, int offset);
+
+        @Override
+        public long decodeLong(byte[] data, int offset) {
+            return (long) decodeFloat(data, offset);
+        }
+
+        @Override
+        public int decodeInt(byte[] data, int offset) {
+            return (int) decodeFloat(data, offset);
+        }
+
+        @Override
+        public double decodeDouble(byte[] data, int offset) {
+            return decodeFloat(data, offset);
+        }
+
+        @Override
+        public boolean isFloatingPoint() {
+            return true;
+        }
+
+        @Override
+        public Number decode(byte[] data, int offset) {
+            return decodeFloat(data, offset);
+        }
+    }
+
+    abstract private static class DoubleDecoder extends NumericDecoder {
+        @Override
+        abstract public double decodeDouble(byte[] data, int offset);
+
+        @Override
+        public long decodeLong(byte[] data, int offset) {
+            return (long) decodeDouble(data, offset);
+        }
+
+        @Override
+        public int decodeInt(byte[] data, int offset) {
+            return (int) decodeDouble(data, offset);
+        }
+
+        @Override
+        public boolean isFloatingPoint() {
+            return true;
+        }
+
+        @Override
+        public Number decode(byte[] data, int offset) {
+            return decodeDouble(data, offset);
+        }
+    }
+}
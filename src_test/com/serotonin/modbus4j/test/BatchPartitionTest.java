@@ -0,0 +1,98 @@
+package com.serotonin.modbus4j.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.serotonin.modbus4j.BatchRead;
+import com.serotonin.modbus4j.ModbusFactory;
+import com.serotonin.modbus4j.ModbusMaster;
+import com.serotonin.modbus4j.base.ReadFunctionGroup;
+import com.serotonin.modbus4j.base.SlaveProfile;
+import com.serotonin.modbus4j.code.DataType;
+import com.serotonin.modbus4j.code.RegisterRange;
+import com.serotonin.modbus4j.ip.IpParameters;
+import com.serotonin.modbus4j.locator.BaseLocator;
+
+public class BatchPartitionTest {
+
+    public static void main(String[] args) {
+        // The master is only used for its limits and slave profiles, so it is never initialized.
+        ModbusMaster master = new ModbusFactory().createTcpMaster(new IpParameters(), true);
+        SlaveProfile profile = master.getSlaveProfile(1);
+
+        BatchRead<Integer> batch = new BatchRead<>();
+        batch.addLocator(0, BaseLocator.holdingRegister(1, 0, DataType.TWO_BYTE_INT_UNSIGNED));
+        batch.addLocator(1, BaseLocator.holdingRegister(1, 4, DataType.FOUR_BYTE_INT_SIGNED));
+        batch.addLocator(2, BaseLocator.holdingRegister(1, 60, DataType.TWO_BYTE_INT_UNSIGNED));
+        batch.addLocator(3, BaseLocator.holdingRegister(1, 62, DataType.TWO_BYTE_INT_UNSIGNED));
+
+        // Greedy packing reads everything in one request.
+        check("greedy", "[0-62]", groups(batch, master));
+
+        // With a large per-register cost, the gap of 55 registers is worth an extra round trip...
+        profile.setRequestCost(20);
+        profile.setRegisterCost(2.3);
+        batch.setCostBasedRequests(true);
+        check("costly gap", "[0-5, 60-62]", groups(batch, master));
+
+        // ... and with a large request cost it is not.
+        profile.setRequestCost(200);
+        batch.setCostBasedRequests(true);
+        check("cheap gap", "[0-62]", groups(batch, master));
+
+        // Unreadable addresses are never spanned, by either partitioner.
+        profile.setRequestCost(20);
+        profile.addUnreadableRange(RegisterRange.HOLDING_REGISTER, 2, 3);
+        batch.setCostBasedRequests(true);
+        check("hole, cost based", "[0-0, 4-5, 60-62]", groups(batch, master));
+        batch.setCostBasedRequests(false);
+        check("hole, greedy", "[0-0, 4-62]", groups(batch, master));
+
+        // Contiguous requests are honoured by the cost based partitioner.
+        profile.clearUnreadableRanges();
+        profile.setRequestCost(200);
+        batch.setContiguousRequests(true);
+        batch.setCostBasedRequests(true);
+        check("contiguous", "[0-0, 4-5, 60-60, 62-62]", groups(batch, master));
+
+        // The maximum read count still applies.
+        BatchRead<Integer> wide = new BatchRead<>();
+        wide.setCostBasedRequests(true);
+        for (int i = 0; i < 300; i += 10)
+            wide.addLocator(i, BaseLocator.holdingRegister(1, i, DataType.TWO_BYTE_INT_UNSIGNED));
+        int longest = 0;
+        for (ReadFunctionGroup<Integer> group : wide.getReadFunctionGroups(master))
+            longest = Math.max(longest, group.getLength());
+        check("max count requests", 3, wide.getReadFunctionGroups(master).size());
+        check("max count length", true, longest <= master.getMaxReadRegisterCount());
+
+        // A max read count learned in the slave profile is respected by both partitioners.
+        profile.setMaxReadCount(RegisterRange.HOLDING_REGISTER, 50);
+        wide.setCostBasedRequests(true);
+        check("learned max count, cost based", "[0-40, 50-90, 100-140, 150-190, 200-240, 250-290]", groups(wide, master));
+        wide.setCostBasedRequests(false);
+        check("learned max count, greedy", "[0-40, 50-90, 100-140, 150-190, 200-240, 250-290]", groups(wide, master));
+        profile.setMaxReadCount(RegisterRange.HOLDING_REGISTER, 0);
+
+        // Requests are sent in order of priority, and otherwise in offset order.
+        BatchRead<Integer> prioritized = new BatchRead<>();
+        prioritized.addLocator(0, BaseLocator.holdingRegister(1, 0, DataType.TWO_BYTE_INT_UNSIGNED));
+        prioritized.addLocator(1, BaseLocator.holdingRegister(1, 200, DataType.TWO_BYTE_INT_UNSIGNED));
+        prioritized.addLocator(2, BaseLocator.holdingRegister(1, 400, DataType.TWO_BYTE_INT_UNSIGNED), 5);
+        prioritized.addLocator(3, BaseLocator.holdingRegister(1, 600, DataType.TWO_BYTE_INT_UNSIGNED));
+        check("priority", "[400-400, 0-0, 200-200, 600-600]", groups(prioritized, master));
+
+        System.out.println("--------end--------");
+    }
+
+    private static String groups(BatchRead<Integer> batch, ModbusMaster master) {
+        List<String> result = new ArrayList<>();
+        for (ReadFunctionGroup<Integer> group : batch.getReadFunctionGroups(master))
+            result.add(group.getStartOffset() + "-" + group.getEndOffset());
+        return result.toString();
+    }
+
+    private static void check(String msg, Object expected, Object actual) {
+        System.out.println(String.format("%s [%s] expected: %s, actual: %s", actual.equals(expected) ? "SUCCESS" : "FAILED", msg, expected, actual));
+    }
+}
@@ -0,0 +1,122 @@
+package com.serotonin.modbus4j.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.serotonin.modbus4j.BasicProcessImage;
+import com.serotonin.modbus4j.BatchResults;
+import com.serotonin.modbus4j.BatchWrite;
+import com.serotonin.modbus4j.ExceptionResult;
+import com.serotonin.modbus4j.code.DataType;
+import com.serotonin.modbus4j.code.FunctionCode;
+import com.serotonin.modbus4j.exception.ModbusTransportException;
+import com.serotonin.modbus4j.ip.IpParameters;
+import com.serotonin.modbus4j.ip.tcp.TcpMaster;
+import com.serotonin.modbus4j.ip.tcp.TcpSlave;
+import com.serotonin.modbus4j.locator.BaseLocator;
+import com.serotonin.modbus4j.msg.ModbusRequest;
+import com.serotonin.modbus4j.msg.ModbusResponse;
+
+public class BatchWriteTest {
+    private static final int PORT = 15503;
+
+    public static void main(String[] args) throws Exception {
+        TcpSlave slave = new TcpSlave(PORT, false);
+        BasicProcessImage processImage = new BasicProcessImage(1);
+        for (int i = 0; i < 100; i++) {
+            processImage.setHoldingRegister(i, (short) 0);
+            processImage.setCoil(i, false);
+        }
+        processImage.setHoldingRegister(50, (short) 0x00F0);
+        slave.addProcessImage(processImage);
+        new Thread(() -> {
+            try {
+                slave.start();
+            }
+            catch (Exception e) {
+                e.printStackTrace();
+            }
+        }).start();
+        Thread.sleep(300);
+
+        IpParameters params = new IpParameters();
+        params.setHost("127.0.0.1");
+        params.setPort(PORT);
+
+        // Note the function code of every request that is sent.
+        List<Byte> functionCodes = new ArrayList<>();
+        TcpMaster master = new TcpMaster(params, true) {
+            @Override
+            public ModbusResponse sendImpl(ModbusRequest request) throws ModbusTransportException {
+                functionCodes.add(request.getFunctionCode());
+                return super.sendImpl(request);
+            }
+        };
+        master.setTimeout(1000);
+        master.init();
+
+        BatchWrite<String> write = new BatchWrite<>();
+        for (int i = 0; i < 40; i++)
+            write.addLocator("r" + i, BaseLocator.holdingRegister(1, i, DataType.TWO_BYTE_INT_SIGNED), -i);
+        write.addLocator("f", BaseLocator.holdingRegister(1, 40, DataType.FOUR_BYTE_FLOAT), 1.5f);
+        write.addLocator("b0", BaseLocator.holdingRegisterBit(1, 50, 0), true);
+        write.addLocator("b4", BaseLocator.holdingRegisterBit(1, 50, 4), false);
+        write.addLocator("b3", BaseLocator.holdingRegisterBit(1, 3, 1), true);
+        for (int i = 0; i < 10; i++)
+            write.addLocator("c" + i, BaseLocator.coilStatus(1, i), i % 2 == 0);
+        write.addLocator("c20", BaseLocator.coilStatus(1, 20), true);
+        BatchResults<String> results = master.send(write);
+
+        // Adjacent values are merged: registers 0-41, register 50, coils 0-9 and coil 20. Only register 50 is read,
+        // since register 3 is entirely written by r3.
+        check("reads", 1, count(functionCodes, FunctionCode.READ_HOLDING_REGISTERS));
+        check("writes", 4, functionCodes.size() - 1);
+        check("r0 outcome", Boolean.TRUE, results.getValue("r0"));
+        check("b0 outcome", Boolean.TRUE, results.getValue("b0"));
+        check("c3 outcome", Boolean.TRUE, results.getValue("c3"));
+        check("r39", (short) -39, processImage.getHoldingRegister(39));
+        check("f", 1.5f, master.getValue(BaseLocator.holdingRegister(1, 40, DataType.FOUR_BYTE_FLOAT)));
+        check("coils", "true false true", processImage.getCoil(0) + " " + processImage.getCoil(1) + " "
+                + processImage.getCoil(20));
+
+        // Read-modify-write of bits: 0x00F0 with bit 0 set and bit 4 cleared. A bit added after the whole register
+        // is applied to the register's new value.
+        check("bits", 0x00E1, (int) processImage.getHoldingRegister(50));
+        check("bit over register", (short) (-3 | 2), processImage.getHoldingRegister(3));
+
+        // The bit of a register that cannot be read is not written, and gets the error as its outcome.
+        BatchWrite<String> hole = new BatchWrite<>();
+        hole.addLocator("hole", BaseLocator.holdingRegisterBit(1, 500, 3), true);
+        hole.addLocator("r60", BaseLocator.holdingRegister(1, 60, DataType.TWO_BYTE_INT_SIGNED), 60);
+        results = master.send(hole);
+        check("hole outcome", true, results.getValue("hole") instanceof ExceptionResult);
+        check("r60 outcome", Boolean.TRUE, results.getValue("r60"));
+
+        // Runs longer than the max write count are split.
+        master.setMaxWriteRegisterCount(10);
+        BatchWrite<String> wide = new BatchWrite<>();
+        for (int i = 0; i < 25; i++)
+            wide.addLocator("r" + i, BaseLocator.holdingRegister(1, i, DataType.TWO_BYTE_INT_SIGNED), 7);
+        functionCodes.clear();
+        results = master.send(wide);
+        check("split", 3, count(functionCodes, FunctionCode.WRITE_REGISTERS));
+        check("r24", (short) 7, processImage.getHoldingRegister(24));
+
+        master.destroy();
+        slave.stop();
+        System.out.println("--------end--------");
+    }
+
+    private static int count(List<Byte> functionCodes, byte functionCode) {
+        int count = 0;
+        for (byte b : functionCodes) {
+            if (b == functionCode)
+                count++;
+        }
+        return count;
+    }
+
+    private static void check(String msg, Object expected, Object actual) {
+        System.out.println(String.format("%s [%s] expected: %s, actual: %s", expected.equals(actual) ? "SUCCESS" : "FAILED", msg, expected, actual));
+    }
+}
@@ -0,0 +1,79 @@
+package com.serotonin.modbus4j.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.serotonin.modbus4j.BasicProcessImage;
+import com.serotonin.modbus4j.code.DataType;
+import com.serotonin.modbus4j.ip.IpParameters;
+import com.serotonin.modbus4j.ip.tcp.NioTcpSlave;
+import com.serotonin.modbus4j.ip.tcp.TcpMaster;
+import com.serotonin.modbus4j.locator.BaseLocator;
+import com.serotonin.modbus4j.msg.ModbusResponse;
+import com.serotonin.modbus4j.msg.ReadHoldingRegistersRequest;
+import com.serotonin.modbus4j.msg.ReadResponse;
+
+public class NioTcpSlaveTest {
+    private static final int PORT = 15502;
+
+    public static void main(String[] args) throws Exception {
+        NioTcpSlave slave = new NioTcpSlave(PORT, false, 2);
+        BasicProcessImage processImage = new BasicProcessImage(1);
+        for (int i = 0; i < 100; i++)
+            processImage.setHoldingRegister(i, (short) (i * 10));
+        slave.addProcessImage(processImage);
+        new Thread(() -> {
+            try {
+                slave.start();
+            }
+            catch (Exception e) {
+                e.printStackTrace();
+            }
+        }).start();
+        Thread.sleep(300);
+
+        IpParameters params = new IpParameters();
+        params.setHost("127.0.0.1");
+        params.setPort(PORT);
+
+        // Several connections, served by two event loops.
+        List<TcpMaster> masters = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            TcpMaster master = new TcpMaster(params, true, true);
+            master.setTimeout(1000);
+            master.init();
+            masters.add(master);
+        }
+        for (int i = 0; i < masters.size(); i++)
+            check("connection " + i, (short) (i * 10),
+                    masters.get(i).getValue(BaseLocator.holdingRegister(1, i, DataType.TWO_BYTE_INT_SIGNED)));
+
+        // Pipelined requests on one connection are all answered, each with its own transaction.
+        TcpMaster pipelined = masters.get(0);
+        pipelined.setMaxInFlight(8);
+        List<CompletableFuture<ModbusResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 50; i++)
+            responses.add(pipelined.sendAsync(new ReadHoldingRegistersRequest(1, i, 1)));
+        int correct = 0;
+        for (int i = 0; i < responses.size(); i++) {
+            if (((ReadResponse) responses.get(i).get()).getShortData()[0] == i * 10)
+                correct++;
+        }
+        check("pipelined", 50, correct);
+
+        // A closed connection does not affect the others.
+        masters.get(1).destroy();
+        check("after close", (short) 20,
+                masters.get(2).getValue(BaseLocator.holdingRegister(1, 2, DataType.TWO_BYTE_INT_SIGNED)));
+
+        for (TcpMaster master : masters)
+            master.destroy();
+        slave.stop();
+        System.out.println("--------end--------");
+    }
+
+    private static void check(String msg, Object expected, Object actual) {
+        System.out.println(String.format("%s [%s] expected: %s, actual: %s", expected.equals(actual) ? "SUCCESS" : "FAILED", msg, expected, actual));
+    }
+}
@@ -0,0 +1,117 @@
+package com.serotonin.modbus4j.test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.serotonin.modbus4j.code.DataType;
+import com.serotonin.modbus4j.util.NumericDecoder;
+
+public class NumericDecoderTest {
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        int types = 0;
+        for (int dataType = DataType.TWO_BYTE_INT_UNSIGNED; dataType <= DataType.ONE_BYTE_INT_UNSIGNED_UPPER;
+                dataType++) {
+            NumericDecoder decoder;
+            try {
+                decoder = NumericDecoder.forDataType(dataType);
+            }
+            catch (IllegalArgumentException e) {
+                // Not a numeric type, or, as with FOUR_BYTE_FLOAT_SWAPPED_INVERTED, not one that can be decoded.
+                continue;
+            }
+            types++;
+            Class<?> javaType = DataType.getJavaType(dataType);
+            check("floating point " + dataType, javaType == Float.class || javaType == Double.class,
+                    decoder.isFloatingPoint());
+
+            // Random data, and data of all ones for the extremes of each type.
+            int mismatches = 0;
+            for (int iteration = 0; iteration < 500; iteration++) {
+                byte[] data = new byte[250];
+                if (iteration == 0)
+                    Arrays.fill(data, (byte) 0xFF);
+                else
+                    random.nextBytes(data);
+                mismatches += compare(decoder, data, random.nextInt(5));
+            }
+            check("bulk vs scalar " + dataType, 0, mismatches);
+        }
+        check("types", 29, types);
+
+        // A few known values.
+        byte[] pi = { 0x40, 0x49, 0x0f, (byte) 0xdb };
+        check("float", 3.1415927f, NumericDecoder.forDataType(DataType.FOUR_BYTE_FLOAT).decode(pi, 0));
+        byte[] ones = new byte[8];
+        Arrays.fill(ones, (byte) 0xFF);
+        NumericDecoder unsigned = NumericDecoder.forDataType(DataType.EIGHT_BYTE_INT_UNSIGNED);
+        check("8 byte unsigned", BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE), unsigned.decode(ones, 0));
+        check("8 byte unsigned double", 18446744073709551615.0, unsigned.decodeDouble(ones, 0));
+        check("8 byte unsigned long", -1L, unsigned.decodeLong(ones, 0));
+
+        // Too short data or destinations are refused.
+        boolean refused = false;
+        try {
+            NumericDecoder.forDataType(DataType.FOUR_BYTE_INT_SIGNED).decodeInts(new byte[10], 0, new int[10], 0, 10);
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            refused = true;
+        }
+        check("short data", true, refused);
+        refused = false;
+        try {
+            NumericDecoder.forDataType(DataType.EIGHT_BYTE_FLOAT).decodeDoubles(new byte[100], 0, new double[2], 1,
+                    2);
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            refused = true;
+        }
+        check("short dest", true, refused);
+
+        System.out.println("--------end--------");
+    }
+
+    /**
+     * Decodes all the values that fit in the data with the bulk and the scalar methods, and counts the values for which
+     * they do not agree.
+     */
+    private static int compare(NumericDecoder decoder, byte[] data, int offset) {
+        int registerCount = decoder.getRegisterCount();
+        int count = (data.length / 2 - offset) / registerCount;
+        int[] ints = new int[count + 3];
+        long[] longs = new long[count + 3];
+        float[] floats = new float[count + 3];
+        double[] doubles = new double[count + 3];
+        decoder.decodeInts(data, offset, ints, 3, count);
+        decoder.decodeLongs(data, offset, longs, 3, count);
+        decoder.decodeFloats(data, offset, floats, 3, count);
+        decoder.decodeDoubles(data, offset, doubles, 3, count);
+
+        int mismatches = 0;
+        for (int i = 0; i < count; i++) {
+            int o = offset + i * registerCount;
+            Number value = decoder.decode(data, o);
+            int intValue = decoder.decodeInt(data, o);
+            long longValue = decoder.decodeLong(data, o);
+            double doubleValue = decoder.decodeDouble(data, o);
+
+            boolean match = ints[3 + i] == intValue && longs[3 + i] == longValue
+                    && Float.floatToIntBits(floats[3 + i]) == Float.floatToIntBits((float) doubleValue)
+                    && Double.doubleToLongBits(doubles[3 + i]) == Double.doubleToLongBits(doubleValue)
+                    // The primitive methods agree with the boxed value.
+                    && value.intValue() == intValue && value.longValue() == longValue
+                    && Double.doubleToLongBits(value.doubleValue()) == Double.doubleToLongBits(doubleValue);
+            if (!decoder.isFloatingPoint())
+                match &= Double.doubleToLongBits(decoder.longToDouble(longValue)) == Double
+                        .doubleToLongBits(doubleValue);
+            if (!match)
+                mismatches++;
+        }
+        return mismatches;
+    }
+
+    private static void check(String msg, Object expected, Object actual) {
+        System.out.println(String.format("%s [%s] expected: %s, actual: %s", expected.equals(actual) ? "SUCCESS" : "FAILED", msg, expected, actual));
+    }
+}